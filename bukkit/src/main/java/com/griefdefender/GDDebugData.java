@@ -78,7 +78,9 @@ public class GDDebugData {
 
     private final CommandSender source;
     private final List<String> header;
-    private final List<String> records;
+    // Guarded by this, swapped out when pasted
+    private List<String> records;
+    private boolean limitReached;
     private final long startTime = System.currentTimeMillis();
     private boolean verbose;
     private GDPermissionUser user;
@@ -106,6 +108,7 @@ public GDDebugData(CommandSender source, String filter, boolean verbose) {
         }
 
         this.verbose = verbose;
+        // Records are added by the event log task
         this.records = new ArrayList<>();
         this.header = new ArrayList<>();
         this.header.add("# GriefDefender Debug Log");
@@ -135,17 +138,28 @@ public GDDebugData(CommandSender source, String filter, boolean verbose) {
     public void addRecord(String flag, String trust, String source, String target, String location, String user, String contexts, Tristate result) {
         // markdown uses '__' for strong formatting, so underscores must be escaped
         user = user.replace("_", "\\_");
-        if (this.records.size() < MAX_LINES) {
-            this.records.add("| " + flag + " | " + trust + " | " + source + " | " + target + " | " + location + " | " + user + " | " + contexts + " | " + result + " | ");
-        } else {
-            TextAdapter.sendComponent(this.source, TextComponent.builder("").append("MAX DEBUG LIMIT REACHED!").append("\n")
-                    .append("Pasting output...", TextColor.GREEN).build());
-            this.pasteRecords();
-            this.records.clear();
-            GriefDefenderPlugin.getInstance().getDebugUserMap().clear();
-            GriefDefenderPlugin.debugActive = false;
-            TextAdapter.sendComponent(this.source, TextComponent.builder("").append(GD_TEXT).append("Debug ", TextColor.GRAY).append("OFF", TextColor.RED).build());
+        synchronized (this) {
+            if (this.records.size() < MAX_LINES) {
+                this.records.add("| " + flag + " | " + trust + " | " + source + " | " + target + " | " + location + " | " + user + " | " + contexts + " | " + result + " | ");
+                return;
+            }
+            if (this.limitReached) {
+                return;
+            }
+            this.limitReached = true;
         }
+
+        // Records are added async, debug state is only changed on the main thread
+        Bukkit.getScheduler().runTask(GDBootstrap.getInstance(), this::onLimitReached);
+    }
+
+    private void onLimitReached() {
+        TextAdapter.sendComponent(this.source, TextComponent.builder("").append("MAX DEBUG LIMIT REACHED!").append("\n")
+                .append("Pasting output...", TextColor.GREEN).build());
+        this.pasteRecords();
+        GriefDefenderPlugin.getInstance().getDebugUserMap().clear();
+        GriefDefenderPlugin.debugActive = false;
+        TextAdapter.sendComponent(this.source, TextComponent.builder("").append(GD_TEXT).append("Debug ", TextColor.GRAY).append("OFF", TextColor.RED).build());
     }
 
     public CommandSender getSource() {
@@ -169,7 +183,13 @@ public boolean isRecording() {
     }
 
     public void pasteRecords() {
-        if (this.records.isEmpty()) {
+        final List<String> records;
+        synchronized (this) {
+            records = this.records;
+            this.records = new ArrayList<>();
+            this.limitReached = false;
+        }
+        if (records.isEmpty()) {
             TextAdapter.sendComponent(this.source, MessageCache.getInstance().DEBUG_NO_RECORDS);
             return;
         }
@@ -196,7 +216,7 @@ public void pasteRecords() {
         debugOutput.add("| " + FLAG + " | " + TRUST + " | " + SOURCE + " | " + TARGET + " | " + LOCATION + " | " + USER + "/" + GROUP + " | " + CONTEXT + " | " + RESULT + " |");
         debugOutput.add("|------|-------|--------|--------|----------|------|----------|--------|");
 
-        debugOutput.addAll(this.records);
+        debugOutput.addAll(records);
 
         String content = String.join("\n", debugOutput);
 
@@ -224,8 +244,8 @@ public void pasteRecords() {
                 .clickEvent(ClickEvent.openUrl(jUrl.toString())).build());
     }
 
-    public void stop() {
-        this.records.clear();
+    public synchronized void stop() {
+        this.records = new ArrayList<>();
     }
 
     private static String postContent(String content) throws IOException {
@@ -34,6 +34,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import org.bukkit.Bukkit;
@@ -52,6 +53,7 @@
 import com.griefdefender.api.claim.ClaimType;
 import com.griefdefender.api.claim.ShovelType;
 import com.griefdefender.api.claim.ShovelTypes;
+import com.griefdefender.api.claim.TrustTypes;
 import com.griefdefender.api.data.PlayerData;
 import com.griefdefender.api.permission.Context;
 import com.griefdefender.api.permission.option.Options;
@@ -64,6 +66,7 @@
 import com.griefdefender.cache.MessageCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.claim.GDClaim;
+import com.griefdefender.claim.GDClaimManager;
 import com.griefdefender.configuration.MessageStorage;
 import com.griefdefender.internal.block.BlockSnapshot;
 import com.griefdefender.internal.block.BlockTransaction;
@@ -124,12 +127,21 @@ public class GDPlayerData implements PlayerData {
     // This prevents protection issues when other plugins call getActiveContext
     public boolean ignoreActiveContexts = true;
 
-    public EventResultCache eventResultCache;
+    public final EventResultCache eventResultCache = new EventResultCache();
 
     // collide event cache
     public int lastCollideEntityId = 0;
     public boolean lastCollideEntityResult = false;
 
+    // claim lookup cache
+    // Also reached from async claim lookups, so it is published as one immutable holder
+    private volatile ClaimLookup lastClaimLookup;
+
+    // border trust cache, only valid for the tick it was populated in
+    // Also reached from async claim lookups, so both fields are thread safe
+    private volatile int borderTrustTick = -1;
+    private final Map<UUID, Boolean> borderTrustCache = new ConcurrentHashMap<>();
+
     private String playerName;
 
     public boolean allowFlight = false;
@@ -175,6 +187,7 @@ public class GDPlayerData implements PlayerData {
     public boolean userOptionBypassPlayerGamemode = false;
 
     // option cache
+    public Boolean optionNoFly = null;
     public Boolean optionNoGodMode = null;
     public Double optionFlySpeed = null;
     public Double optionWalkSpeed = null;
@@ -210,6 +223,78 @@ public GDPlayerData(UUID worldUniqueId, String worldName, UUID playerUniqueId, S
         this.refreshPlayerOptions();
     }
 
+    /**
+     * Gets the last resolved claim if the position is still within its bounds
+     * and outside of its children.
+     * 
+     * @param claimManager The claim manager of the world
+     * @param generation The current index generation of the claim manager
+     * @return The cached claim, or null if lookup is required
+     */
+    public GDClaim getCachedClaimAt(GDClaimManager claimManager, int generation, int x, int y, int z) {
+        final ClaimLookup lookup = this.lastClaimLookup;
+        if (lookup == null || lookup.claimManager != claimManager || lookup.generation != generation) {
+            return null;
+        }
+        if (x < lookup.minX || x > lookup.maxX || y < lookup.minY || y > lookup.maxY
+                || z < lookup.minZ || z > lookup.maxZ) {
+            return null;
+        }
+        final GDClaim claim = lookup.claim;
+        if (!claim.isWilderness()) {
+            for (Claim child : claim.children) {
+                final GDClaim childClaim = (GDClaim) child;
+                if (x >= childClaim.lesserBoundaryCorner.getX() && x <= childClaim.greaterBoundaryCorner.getX()
+                        && y >= childClaim.lesserBoundaryCorner.getY() && y <= childClaim.greaterBoundaryCorner.getY()
+                        && z >= childClaim.lesserBoundaryCorner.getZ() && z <= childClaim.greaterBoundaryCorner.getZ()) {
+                    return null;
+                }
+            }
+        }
+        return claim;
+    }
+
+    public void setCachedClaimAt(GDClaimManager claimManager, int generation, GDClaim claim, int x, int y, int z) {
+        if (!claim.isWilderness()) {
+            this.lastClaimLookup = new ClaimLookup(claimManager, claim, generation,
+                    claim.lesserBoundaryCorner.getX(), claim.lesserBoundaryCorner.getY(), claim.lesserBoundaryCorner.getZ(),
+                    claim.greaterBoundaryCorner.getX(), claim.greaterBoundaryCorner.getY(), claim.greaterBoundaryCorner.getZ());
+            return;
+        }
+        final int chunkX = x >> 4;
+        final int chunkZ = z >> 4;
+        if (!claimManager.hasChunkClaims(chunkX, chunkZ)) {
+            // The whole chunk is outside of all claims
+            this.lastClaimLookup = new ClaimLookup(claimManager, claim, generation,
+                    chunkX << 4, Integer.MIN_VALUE, chunkZ << 4, (chunkX << 4) + 15, Integer.MAX_VALUE, (chunkZ << 4) + 15);
+            return;
+        }
+        // Only the current block is known to be outside of all claims
+        this.lastClaimLookup = new ClaimLookup(claimManager, claim, generation, x, y, z, x, y, z);
+    }
+
+    /**
+     * Gets whether this player is trusted to bypass the border of a claim.
+     * 
+     * <p>The result is cached per claim until the server ticks.</p>
+     * 
+     * @param claim The claim
+     * @return Whether the player is a builder or above in claim
+     */
+    public boolean isBorderTrusted(GDClaim claim) {
+        final int tick = NMSUtil.getInstance().getRunningServerTicks();
+        if (tick != this.borderTrustTick) {
+            this.borderTrustCache.clear();
+            this.borderTrustTick = tick;
+        }
+        Boolean trusted = this.borderTrustCache.get(claim.getUniqueId());
+        if (trusted == null) {
+            trusted = claim.isUserTrusted(this.getSubject(), TrustTypes.BUILDER);
+            this.borderTrustCache.put(claim.getUniqueId(), trusted);
+        }
+        return trusted;
+    }
+
     // Run async
     public void refreshPlayerOptions() {
         //final GriefDefenderConfig<?> activeConfig = GriefDefenderPlugin.getActiveConfig(this.worldUniqueId);
@@ -883,12 +968,13 @@ public boolean isWaitingForInput() {
 
     public void onClaimDelete() {
         this.lastShovelLocation = null;
-        this.eventResultCache = null;
+        this.eventResultCache.clear();
         this.claimResizing = null;
         this.claimSubdividing = null;
     }
 
     public void resetOptionCache() {
+        this.optionNoFly = null;
         this.optionNoGodMode = null;
         this.optionFlySpeed = null;
         this.optionWalkSpeed = null;
@@ -907,7 +993,7 @@ public void onDisconnect() {
         this.debugClaimPermissions = false;
         this.ignoreClaims = false;
         this.lastShovelLocation = null;
-        this.eventResultCache = null;
+        this.eventResultCache.clear();
         this.claimResizing = null;
         this.claimSubdividing = null;
         this.commandInputTimestamp = null;
@@ -917,4 +1003,29 @@ public void onDisconnect() {
             GriefDefenderPlugin.getInstance().getWorldEditProvider().revertAllVisuals(this.playerID);
         }
     }
-}
\ No newline at end of file
+
+    private static final class ClaimLookup {
+
+        final GDClaimManager claimManager;
+        final GDClaim claim;
+        final int generation;
+        final int minX;
+        final int minY;
+        final int minZ;
+        final int maxX;
+        final int maxY;
+        final int maxZ;
+
+        ClaimLookup(GDClaimManager claimManager, GDClaim claim, int generation, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.claimManager = claimManager;
+            this.claim = claim;
+            this.generation = generation;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+    }
+}
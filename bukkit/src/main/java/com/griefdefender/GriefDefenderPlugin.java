@@ -38,13 +38,13 @@
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 import com.griefdefender.provider.permissionsex.PermissionsExProvider;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.LocaleUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -57,6 +57,7 @@
 import org.bukkit.scheduler.BukkitRunnable;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Guice;
 import com.google.inject.Stage;
@@ -76,7 +77,11 @@
 import com.griefdefender.api.permission.option.type.CreateModeType;
 import com.griefdefender.api.permission.option.type.GameModeType;
 import com.griefdefender.api.permission.option.type.WeatherType;
+import com.griefdefender.cache.FlagDecisionCache;
+import com.griefdefender.cache.FlagDefaultTable;
+import com.griefdefender.cache.FlagPresenceIndex;
 import com.griefdefender.cache.MessageCache;
+import com.griefdefender.cache.OptionValueCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.claim.GDClaim;
 import com.griefdefender.claim.GDClaimManager;
@@ -228,11 +233,14 @@
 import com.griefdefender.storage.FileStorage;
 import com.griefdefender.task.ClaimBlockTask;
 import com.griefdefender.task.ClaimCleanupTask;
+import com.griefdefender.task.EventLogTask;
+import com.griefdefender.task.EventLogTask.EventLogEntry;
 import com.griefdefender.task.PlayerTickTask;
 import com.griefdefender.task.RentApplyTask;
 import com.griefdefender.task.RentDelinquentApplyTask;
 import com.griefdefender.task.SignUpdateTask;
 import com.griefdefender.task.TaxApplyTask;
+import com.griefdefender.util.IdMatcher;
 import com.griefdefender.util.PermissionUtil;
 
 import co.aikar.commands.BaseCommand;
@@ -315,8 +323,8 @@ public class GriefDefenderPlugin {
     public boolean isCustomItemsInstalled = false;
 
     public static boolean debugLogging = false;
-    public static boolean debugActive = false;
-    private Map<String, GDDebugData> debugUserMap = new HashMap<>();
+    public static volatile boolean debugActive = false;
+    private Map<String, GDDebugData> debugUserMap = new ConcurrentHashMap<>();
     public static final Component GD_TEXT = TextComponent.builder("").append("[").append("GD", TextColor.AQUA).append("] ").build();
     public static final List<String> ID_MAP = new ArrayList<>();
     public static List<Component> helpComponents = new ArrayList<>();
@@ -333,50 +341,70 @@ public Path getConfigPath() {
     }
 
     public static void addEventLogEntry(Event event, Claim claim, Location location, String sourceId, String targetId, GDPermissionHolder permissionSubject, String permission, String trust, Tristate result, Set<Context> contexts) {
-        final String eventName = event.getClass().getSimpleName().replace('$', '.').replace(".Impl", "");
-        final String eventLocation = location == null ? "none" : VecHelper.toVector3i(location).toString();
         final GDPermissionHolder debugHolder = PermissionUtil.getInstance().getGDPermissionHolder(permissionSubject, contexts);
+        if (!hasDebugListener(claim, debugHolder)) {
+            return;
+        }
+
+        // Formatting and filters are handled by the event log task
+        EventLogTask.addEntry(new EventLogEntry(event.getClass(), claim, location == null ? null : location.clone(), sourceId, targetId, debugHolder,
+                permission, trust, result, ImmutableSet.copyOf(contexts)));
+    }
+
+    // String filters are checked when the entry is logged
+    private static boolean hasDebugListener(Claim claim, GDPermissionHolder debugHolder) {
+        for (GDDebugData debugEntry : GriefDefenderPlugin.getInstance().getDebugUserMap().values()) {
+            if (matchesDebugFilter(debugEntry, claim, debugHolder, null, null, null, null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Checks the user and claim filters, the string filter is skipped if permission is null
+    private static boolean matchesDebugFilter(GDDebugData debugEntry, Claim claim, GDPermissionHolder debugHolder, String permission, String sourceId, String targetId, Set<Context> contexts) {
+        final GDPermissionUser debugUser = debugEntry.getUser();
+        if (debugUser != null) {
+            // Check event source user
+            return debugHolder != null && debugHolder.getIdentifier().equals(debugUser.getUniqueId().toString());
+        }
+        if (debugEntry.getClaimUniqueId() != null) {
+            return claim.getUniqueId().equals(debugEntry.getClaimUniqueId());
+        }
+        if (debugEntry.getFilter() == null || permission == null) {
+            return true;
+        }
+
+        //check filter
+        final String filter = debugEntry.getFilter();
+        if (permission.contains(filter) || targetId.contains(filter) || sourceId.contains(filter)) {
+            return true;
+        }
+        // check contexts
+        for (Context context : contexts) {
+            if (context.getKey().contains(filter) || context.getValue().contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void logEventEntry(EventLogEntry entry) {
+        final Claim claim = entry.claim;
+        final Location location = entry.location;
+        final String sourceId = entry.sourceId;
+        final String targetId = entry.targetId;
+        final GDPermissionHolder debugHolder = entry.holder;
+        final Tristate result = entry.result;
+        final Set<Context> contexts = entry.contexts;
+        String permission = entry.permission;
+        String trust = entry.trust;
+        final String eventName = entry.eventClass.getSimpleName().replace('$', '.').replace(".Impl", "");
+        final String eventLocation = location == null ? "none" : VecHelper.toVector3i(location).toString();
         for (GDDebugData debugEntry : GriefDefenderPlugin.getInstance().getDebugUserMap().values()) {
             final CommandSender debugSource = debugEntry.getSource();
-            final GDPermissionUser debugUser = debugEntry.getUser();
-            if (debugUser != null) {
-                if (debugHolder == null) {
-                    continue;
-                }
-                // Check event source user
-                if (!debugHolder.getIdentifier().equals(debugUser.getUniqueId().toString())) {
-                    continue;
-                }
-            } else if (debugEntry.getClaimUniqueId() != null) {
-                if (!claim.getUniqueId().equals(debugEntry.getClaimUniqueId())) {
-                    continue;
-                }
-            } else if (debugEntry.getFilter() != null) {
-                //check filter
-                final String filter = debugEntry.getFilter();
-                boolean match = false;
-                if (permission.contains(filter)) {
-                    match = true;
-                } else if (targetId.contains(filter)) {
-                    match = true;
-                } else if (sourceId.contains(filter)) {
-                    match = true;
-                } else {
-                    // check contexts
-                    for (Context context : contexts) {
-                        if (context.getKey().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                        if (context.getValue().contains(filter)) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-                if (!match) {
-                    continue;
-                }
+            if (!matchesDebugFilter(debugEntry, claim, debugHolder, permission, sourceId, targetId, contexts)) {
+                continue;
             }
 
             String messageUser = debugHolder.getFriendlyName().replaceAll("griefdefender_", "");
@@ -690,6 +718,7 @@ public void onEnable(boolean reload) {
             this.runningTasks.add(new ClaimBlockTask());
         }
         new PlayerTickTask();
+        this.runningTasks.add(new EventLogTask());
         if (GriefDefenderPlugin.getGlobalConfig().getConfig().economy.rentSystem && GriefDefenderPlugin.getGlobalConfig().getConfig().economy.isRentSignEnabled()) {
             this.runningTasks.add(new SignUpdateTask(GriefDefenderPlugin.getGlobalConfig().getConfig().economy.signUpdateInterval));
         }
@@ -1113,6 +1142,10 @@ public PaperCommandManager getCommandManager() {
 
     public void loadConfig() {
         this.getLogger().info("Loading configuration...");
+        FlagDecisionCache.getInstance().invalidateAll();
+        OptionValueCache.getInstance().invalidateAll();
+        FlagDefaultTable.getInstance().invalidateAll();
+        GDPermissionManager.getInstance().clearContextCache();
         try {
             TypeSerializers.getDefaultSerializers().registerType(TypeToken.of(Component.class), new ComponentConfigSerializer());
             TypeSerializers.getDefaultSerializers().registerType(TypeToken.of(ClaimType.class), new ClaimTypeSerializer());
@@ -1210,8 +1243,13 @@ public void loadConfig() {
                 // refresh default permissions
                 this.dataStore.setDefaultGlobalPermissions();
             }
+            // PermissionsEx does not notify GD of changes so the index is only used with LuckPerms
+            if (PermissionUtil.getInstance().canCacheResults()) {
+                FlagPresenceIndex.getInstance().rebuild();
+            }
             if (this.tagProvider != null && getMajorMinecraftVersion() > 15) {
                 this.tagProvider.refresh();
+                GDPermissionManager.getInstance().clearContextCache();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -1297,8 +1335,8 @@ public static GDPermissionUser getOrCreateUser(UUID uuid) {
     }
 
     public static boolean isSourceIdBlacklisted(String flag, Object source, UUID worldUniqueId) {
-        final List<String> flagList = GriefDefenderPlugin.getGlobalConfig().getConfig().blacklist.flagIdBlacklist.get(flag);
-        final boolean checkFlag = flagList != null && !flagList.isEmpty();
+        final IdMatcher flagMatcher = GriefDefenderPlugin.getGlobalConfig().getConfig().blacklist.getFlagMatcher(flag);
+        final boolean checkFlag = flagMatcher != null && !flagMatcher.isEmpty();
         final boolean checkGlobal = !GriefDefenderPlugin.getGlobalConfig().getConfig().blacklist.globalSourceBlacklist.isEmpty();
         if (!checkFlag && !checkGlobal) {
             return false;
@@ -1306,33 +1344,22 @@ public static boolean isSourceIdBlacklisted(String flag, Object source, UUID wor
 
         final GriefDefenderConfig<?> activeConfig = GriefDefenderPlugin.getActiveConfig(worldUniqueId);
         final String id = GDPermissionManager.getInstance().getPermissionIdentifier(source);
-        final String idNoMeta = GDPermissionManager.getInstance().getIdentifierWithoutMeta(id);
 
         // Check global
         if (checkGlobal) {
             final BlacklistCategory blacklistCategory = activeConfig.getConfig().blacklist;
-            final List<String> globalSourceBlacklist = blacklistCategory.getGlobalSourceBlacklist();
-            if (globalSourceBlacklist == null) {
+            final IdMatcher globalSourceMatcher = blacklistCategory.getGlobalSourceMatcher();
+            if (globalSourceMatcher == null) {
                 return false;
             }
-            for (String str : globalSourceBlacklist) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
+            if (globalSourceMatcher.matches(id)) {
+                return true;
             }
         }
         // Check flag
         if (checkFlag) {
-            for (String str : flagList) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
+            if (flagMatcher.matches(id)) {
+                return true;
             }
         }
 
@@ -1340,8 +1367,8 @@ public static boolean isSourceIdBlacklisted(String flag, Object source, UUID wor
     }
 
     public static boolean isTargetIdBlacklisted(String flag, Object target, UUID worldUniqueId) {
-        final List<String> flagList = GriefDefenderPlugin.getGlobalConfig().getConfig().blacklist.flagIdBlacklist.get(flag);
-        final boolean checkFlag = flagList != null && !flagList.isEmpty();
+        final IdMatcher flagMatcher = GriefDefenderPlugin.getGlobalConfig().getConfig().blacklist.getFlagMatcher(flag);
+        final boolean checkFlag = flagMatcher != null && !flagMatcher.isEmpty();
         final boolean checkGlobal = !GriefDefenderPlugin.getGlobalConfig().getConfig().blacklist.globalTargetBlacklist.isEmpty();
         if (!checkFlag && !checkGlobal) {
             return false;
@@ -1349,33 +1376,22 @@ public static boolean isTargetIdBlacklisted(String flag, Object target, UUID wor
 
         final GriefDefenderConfig<?> activeConfig = GriefDefenderPlugin.getActiveConfig(worldUniqueId);
         final String id = GDPermissionManager.getInstance().getPermissionIdentifier(target);
-        final String idNoMeta = GDPermissionManager.getInstance().getIdentifierWithoutMeta(id);
 
         // Check global
         if (checkGlobal) {
             final BlacklistCategory blacklistCategory = activeConfig.getConfig().blacklist;
-            final List<String> globalTargetBlacklist = blacklistCategory.getGlobalTargetBlacklist();
-            if (globalTargetBlacklist == null) {
+            final IdMatcher globalTargetMatcher = blacklistCategory.getGlobalTargetMatcher();
+            if (globalTargetMatcher == null) {
                 return false;
             }
-            for (String str : globalTargetBlacklist) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
+            if (globalTargetMatcher.matches(id)) {
+                return true;
             }
         }
         // Check flag
         if (checkFlag) {
-            for (String str : flagList) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
+            if (flagMatcher.matches(id)) {
+                return true;
             }
         }
 
@@ -0,0 +1,163 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.cache;
+
+import java.util.Arrays;
+
+import com.griefdefender.api.Tristate;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.internal.util.NMSUtil;
+import com.griefdefender.permission.GDPermissionUser;
+
+/**
+ * Deduplicates block physics checks within a tick.
+ * 
+ * <p>A physics result only depends on the source claim, the target claim and
+ * the user tracked at the source so repeated notifications between the same
+ * pair are answered from a small ring that expires when the tick changes.</p>
+ * 
+ * <p>Per tick counts are kept so the amount of skipped checks can be
+ * reported with {@code /gd debug physics}.</p>
+ */
+public class BlockPhysicsCache {
+
+    private static final int MAX_ENTRIES = 16;
+
+    private static BlockPhysicsCache instance;
+
+    static {
+        instance = new BlockPhysicsCache();
+    }
+
+    public static BlockPhysicsCache getInstance() {
+        return instance;
+    }
+
+    private final Claim[] sourceClaims = new Claim[MAX_ENTRIES];
+    private final Claim[] targetClaims = new Claim[MAX_ENTRIES];
+    private final GDPermissionUser[] users = new GDPermissionUser[MAX_ENTRIES];
+    private final Tristate[] results = new Tristate[MAX_ENTRIES];
+    private int size = 0;
+    private int nextIndex = 0;
+    private int tickCounter = -1;
+
+    // Counts of the current tick
+    private int events = 0;
+    private int skipped = 0;
+    private int deduplicated = 0;
+    private int checked = 0;
+    // Counts of the last completed tick
+    private int lastTick = -1;
+    private int lastEvents = 0;
+    private int lastSkipped = 0;
+    private int lastDeduplicated = 0;
+    private int lastChecked = 0;
+
+    /**
+     * Starts handling a physics event, expiring results of previous ticks.
+     */
+    public void startEvent() {
+        final int tickCounter = NMSUtil.getInstance().getRunningServerTicks();
+        if (tickCounter != this.tickCounter) {
+            if (this.tickCounter != -1) {
+                this.lastTick = this.tickCounter;
+                this.lastEvents = this.events;
+                this.lastSkipped = this.skipped;
+                this.lastDeduplicated = this.deduplicated;
+                this.lastChecked = this.checked;
+            }
+            this.tickCounter = tickCounter;
+            this.events = 0;
+            this.skipped = 0;
+            this.deduplicated = 0;
+            this.checked = 0;
+            this.size = 0;
+            // Don't hold on to claims and users of previous ticks
+            Arrays.fill(this.sourceClaims, null);
+            Arrays.fill(this.targetClaims, null);
+            Arrays.fill(this.users, null);
+        }
+        this.events++;
+    }
+
+    /**
+     * Records an event that exited without a claim check.
+     */
+    public void skip() {
+        this.skipped++;
+    }
+
+    /**
+     * Gets the result of a claim pair checked during the current tick.
+     * 
+     * @param sourceClaim The source claim
+     * @param targetClaim The target claim
+     * @param user The user tracked at the source
+     * @return The result, undefined if none
+     */
+    public Tristate getResult(Claim sourceClaim, Claim targetClaim, GDPermissionUser user) {
+        for (int i = 1; i <= this.size; i++) {
+            final int index = (this.nextIndex - i + MAX_ENTRIES) % MAX_ENTRIES;
+            if (this.targetClaims[index] == targetClaim && this.sourceClaims[index] == sourceClaim && this.users[index] == user) {
+                this.deduplicated++;
+                return this.results[index];
+            }
+        }
+
+        return Tristate.UNDEFINED;
+    }
+
+    public void addResult(Claim sourceClaim, Claim targetClaim, GDPermissionUser user, Tristate result) {
+        this.checked++;
+        this.sourceClaims[this.nextIndex] = sourceClaim;
+        this.targetClaims[this.nextIndex] = targetClaim;
+        this.users[this.nextIndex] = user;
+        this.results[this.nextIndex] = result;
+        this.nextIndex = (this.nextIndex + 1) % MAX_ENTRIES;
+        if (this.size < MAX_ENTRIES) {
+            this.size++;
+        }
+    }
+
+    public int getLastTick() {
+        return this.lastTick;
+    }
+
+    public int getLastEvents() {
+        return this.lastEvents;
+    }
+
+    public int getLastSkipped() {
+        return this.lastSkipped;
+    }
+
+    public int getLastDeduplicated() {
+        return this.lastDeduplicated;
+    }
+
+    public int getLastChecked() {
+        return this.lastChecked;
+    }
+}
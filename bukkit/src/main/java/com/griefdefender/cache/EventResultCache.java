@@ -24,45 +24,118 @@
  */
 package com.griefdefender.cache;
 
+import java.util.Arrays;
 import java.util.UUID;
 
-import com.griefdefender.GriefDefenderPlugin;
 import com.griefdefender.api.Tristate;
 import com.griefdefender.api.claim.Claim;
 import com.griefdefender.api.permission.flag.Flag;
-import com.griefdefender.claim.GDClaim;
 import com.griefdefender.internal.util.NMSUtil;
 
+/**
+ * Holds the event results of the current tick.
+ * 
+ * <p>Entries are keyed by claim, flag and target hash and stored in a small
+ * ring so that events alternating between claims do not evict each other.
+ * All entries expire when the tick changes.</p>
+ * 
+ * <p>Only players hold one. Results are not keyed by source or contexts, so
+ * events without a user rely on {@link BlockPhysicsCache} and batched
+ * explosion lookups instead of a shared world cache.</p>
+ */
 public class EventResultCache {
 
-    public String eventFlag;
-    public Tristate lastResult = Tristate.UNDEFINED;
-    public int lastTickCounter = 0;
-    public UUID lastClaim = GriefDefenderPlugin.PUBLIC_UUID;
+    public static final int ANY_TARGET = 0;
+    private static final int MAX_ENTRIES = 8;
+
+    private final UUID[] claims = new UUID[MAX_ENTRIES];
+    private final Flag[] flags = new Flag[MAX_ENTRIES];
+    private final int[] targets = new int[MAX_ENTRIES];
+    private final Tristate[] results = new Tristate[MAX_ENTRIES];
+    private int size = 0;
+    private int nextIndex = 0;
+    private int tickCounter = -1;
 
-    public EventResultCache(Claim claim, String flag, Tristate result) {
-        this.eventFlag = flag;
-        this.lastClaim = claim.getUniqueId();
-        this.lastResult = result;
-        this.lastTickCounter = NMSUtil.getInstance().getRunningServerTicks();
+    public Tristate checkEventResultCache(Claim claim) {
+        return this.checkEventResultCache(claim, null, ANY_TARGET);
     }
 
-    public Tristate checkEventResultCache(GDClaim claim) {
-        return this.checkEventResultCache(claim, null);
+    public Tristate checkEventResultCache(Claim claim, Flag flag) {
+        return this.checkEventResultCache(claim, flag, ANY_TARGET);
     }
 
-    public Tristate checkEventResultCache(GDClaim claim, String flag) {
-        if (NMSUtil.getInstance().getRunningServerTicks() > this.lastTickCounter) {
+    /**
+     * Gets the most recent result of the current tick.
+     * 
+     * @param claim The claim
+     * @param flag The flag, null to match any
+     * @param targetHash The target hash, {@link #ANY_TARGET} to match any
+     * @return The result, undefined if none
+     */
+    public Tristate checkEventResultCache(Claim claim, Flag flag, int targetHash) {
+        if (NMSUtil.getInstance().getRunningServerTicks() != this.tickCounter) {
             return Tristate.UNDEFINED;
         }
 
-        if (claim.getUniqueId().equals(this.lastClaim)) {
-            if (flag != null && this.eventFlag != null && !this.eventFlag.equalsIgnoreCase(flag)) {
-                return Tristate.UNDEFINED;
+        final UUID claimUniqueId = claim.getUniqueId();
+        for (int i = 1; i <= this.size; i++) {
+            final int index = (this.nextIndex - i + MAX_ENTRIES) % MAX_ENTRIES;
+            if (!claimUniqueId.equals(this.claims[index])) {
+                continue;
+            }
+            if (flag != null && this.flags[index] != flag) {
+                continue;
+            }
+            if (targetHash != ANY_TARGET && this.targets[index] != targetHash) {
+                continue;
             }
-            return this.lastResult;
+            return this.results[index];
         }
 
         return Tristate.UNDEFINED;
     }
+
+    public void addEventResult(Claim claim, Flag flag, Tristate result) {
+        this.addEventResult(claim, flag, ANY_TARGET, result);
+    }
+
+    /**
+     * Adds a result to the current tick.
+     * 
+     * @param claim The claim
+     * @param flag The flag, null if the result is not tied to a flag
+     * @param targetHash The target hash
+     * @param result The result
+     */
+    public void addEventResult(Claim claim, Flag flag, int targetHash, Tristate result) {
+        final int tickCounter = NMSUtil.getInstance().getRunningServerTicks();
+        if (tickCounter != this.tickCounter) {
+            this.tickCounter = tickCounter;
+            this.size = 0;
+        }
+
+        final UUID claimUniqueId = claim.getUniqueId();
+        for (int i = 1; i <= this.size; i++) {
+            final int index = (this.nextIndex - i + MAX_ENTRIES) % MAX_ENTRIES;
+            if (claimUniqueId.equals(this.claims[index]) && this.flags[index] == flag && this.targets[index] == targetHash) {
+                this.results[index] = result;
+                return;
+            }
+        }
+
+        this.claims[this.nextIndex] = claimUniqueId;
+        this.flags[this.nextIndex] = flag;
+        this.targets[this.nextIndex] = targetHash;
+        this.results[this.nextIndex] = result;
+        this.nextIndex = (this.nextIndex + 1) % MAX_ENTRIES;
+        if (this.size < MAX_ENTRIES) {
+            this.size++;
+        }
+    }
+
+    public void clear() {
+        this.size = 0;
+        this.tickCounter = -1;
+        Arrays.fill(this.claims, null);
+    }
 }
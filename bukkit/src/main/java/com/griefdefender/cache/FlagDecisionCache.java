@@ -0,0 +1,261 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableSet;
+import com.griefdefender.api.Tristate;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.api.permission.Context;
+import com.griefdefender.permission.GDPermissionHolder;
+import com.griefdefender.permission.GDPermissionUser;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches resolved flag permission values.
+ * 
+ * <p>A decision is keyed by the holder, claim, flag permission and the full
+ * set of event contexts used to resolve it. Lookups reuse a per-thread key
+ * so cache hits do not allocate.</p>
+ * 
+ * <p>Keys also hold the generation of their holder and claim. Invalidating a
+ * holder or claim bumps its generation, so its stale decisions are never hit
+ * again and age out of the cache instead of being searched for.</p>
+ */
+public class FlagDecisionCache {
+
+    private static final int MAX_ENTRIES = 50000;
+
+    private static FlagDecisionCache instance;
+
+    static {
+        instance = new FlagDecisionCache();
+    }
+
+    public static FlagDecisionCache getInstance() {
+        return instance;
+    }
+
+    private final Cache<Key, Tristate> decisionCache = Caffeine.newBuilder().maximumSize(MAX_ENTRIES).build();
+    private final ThreadLocal<Key> lookupKey = ThreadLocal.withInitial(Key::new);
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Map<String, AtomicInteger> holderGenerations = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> claimGenerations = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a cached decision.
+     * 
+     * @param holder The holder
+     * @param claim The claim
+     * @param permission The flag permission
+     * @param contexts The event contexts
+     * @param contextsHash The hash of contexts
+     * @return The decision, null if not cached
+     */
+    public Tristate getIfPresent(GDPermissionHolder holder, Claim claim, String permission, Set<Context> contexts, int contextsHash) {
+        final Key key = this.lookupKey.get();
+        final String identifier = holder.getIdentifier();
+        final UUID claimUniqueId = claim.getUniqueId();
+        key.set(identifier, getGeneration(this.holderGenerations, identifier), claimUniqueId, getGeneration(this.claimGenerations, claimUniqueId), permission, contexts, contextsHash);
+        final Tristate value = this.decisionCache.getIfPresent(key);
+        // Don't hold on to event contexts
+        key.contexts = null;
+        return value;
+    }
+
+    /**
+     * Caches a decision.
+     * 
+     * <p>The decision is dropped if any invalidation happened since the
+     * generation was captured, as it may have been resolved from stale data.</p>
+     * 
+     * @param holder The holder
+     * @param claim The claim
+     * @param permission The flag permission
+     * @param contexts The event contexts
+     * @param contextsHash The hash of contexts
+     * @param value The decision
+     * @param generation The generation captured before resolving the decision
+     */
+    public synchronized void put(GDPermissionHolder holder, Claim claim, String permission, Set<Context> contexts, int contextsHash, Tristate value, int generation) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+        final Key key = new Key();
+        final String identifier = holder.getIdentifier();
+        final UUID claimUniqueId = claim.getUniqueId();
+        key.set(identifier, getGeneration(this.holderGenerations, identifier), claimUniqueId, getGeneration(this.claimGenerations, claimUniqueId), permission, ImmutableSet.copyOf(contexts), contextsHash);
+        this.decisionCache.put(key, value);
+    }
+
+    private static <T> int getGeneration(Map<T, AtomicInteger> generations, T id) {
+        final AtomicInteger generation = generations.get(id);
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * Invalidates all decisions affected by a change to a holder.
+     * 
+     * <p>Groups are inherited by users so any group change
+     * invalidates all decisions. Offline users are removed instead
+     * so their generations are not kept around.</p>
+     * 
+     * @param holder The holder
+     */
+    public synchronized void invalidate(GDPermissionHolder holder) {
+        if (holder instanceof GDPermissionUser) {
+            if (!((GDPermissionUser) holder).isOnline()) {
+                this.remove(holder);
+                return;
+            }
+            this.holderGenerations.computeIfAbsent(holder.getIdentifier(), k -> new AtomicInteger()).incrementAndGet();
+            this.incrementGeneration();
+        } else {
+            this.invalidateAll();
+        }
+    }
+
+    /**
+     * Invalidates all decisions of a claim and of its children,
+     * which may inherit from it.
+     * 
+     * @param claim The claim
+     */
+    public synchronized void invalidate(Claim claim) {
+        this.claimGenerations.computeIfAbsent(claim.getUniqueId(), k -> new AtomicInteger()).incrementAndGet();
+        for (Claim child : claim.getChildren(true)) {
+            this.claimGenerations.computeIfAbsent(child.getUniqueId(), k -> new AtomicInteger()).incrementAndGet();
+        }
+        this.incrementGeneration();
+    }
+
+    /**
+     * Removes all decisions and the generation of a holder.
+     * 
+     * <p>Note: This should be called when a user logs out.</p>
+     * 
+     * @param holder The holder
+     */
+    public synchronized void remove(GDPermissionHolder holder) {
+        final String identifier = holder.getIdentifier();
+        this.decisionCache.asMap().keySet().removeIf(key -> key.holder.equals(identifier));
+        this.holderGenerations.remove(identifier);
+        this.incrementGeneration();
+    }
+
+    /**
+     * Removes all decisions and the generation of a claim.
+     * 
+     * <p>Note: This should be called when a claim is deleted.</p>
+     * 
+     * @param claim The claim
+     */
+    public synchronized void remove(Claim claim) {
+        final UUID claimUniqueId = claim.getUniqueId();
+        this.decisionCache.asMap().keySet().removeIf(key -> key.claimUniqueId.equals(claimUniqueId));
+        this.claimGenerations.remove(claimUniqueId);
+        this.incrementGeneration();
+    }
+
+    public synchronized void invalidateAll() {
+        this.decisionCache.invalidateAll();
+        this.holderGenerations.clear();
+        this.claimGenerations.clear();
+        this.incrementGeneration();
+    }
+
+    /**
+     * Gets the current decision generation.
+     * 
+     * <p>The generation changes whenever a flag decision or group trust may
+     * have changed. Caches of final results layered
+     * above the permission manager compare it to detect stale entries.</p>
+     * 
+     * @return The generation
+     */
+    public int getGeneration() {
+        return this.generation.get();
+    }
+
+    public synchronized void incrementGeneration() {
+        this.generation.incrementAndGet();
+    }
+
+    private static final class Key {
+
+        String holder;
+        int holderGeneration;
+        UUID claimUniqueId;
+        int claimGeneration;
+        String permission;
+        Set<Context> contexts;
+        int hashCode;
+
+        void set(String holder, int holderGeneration, UUID claimUniqueId, int claimGeneration, String permission, Set<Context> contexts, int contextsHash) {
+            this.holder = holder;
+            this.holderGeneration = holderGeneration;
+            this.claimUniqueId = claimUniqueId;
+            this.claimGeneration = claimGeneration;
+            this.permission = permission;
+            this.contexts = contexts;
+            int result = holder.hashCode();
+            result = 31 * result + holderGeneration;
+            result = 31 * result + claimUniqueId.hashCode();
+            result = 31 * result + claimGeneration;
+            result = 31 * result + permission.hashCode();
+            result = 31 * result + contextsHash;
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.hashCode == other.hashCode
+                    && this.holderGeneration == other.holderGeneration
+                    && this.claimGeneration == other.claimGeneration
+                    && this.holder.equals(other.holder)
+                    && this.claimUniqueId.equals(other.claimUniqueId)
+                    && this.permission.equals(other.permission)
+                    && this.contexts.equals(other.contexts);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.cache;
+
+import com.griefdefender.api.Tristate;
+import com.griefdefender.api.claim.ClaimContexts;
+import com.griefdefender.api.permission.Context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of transient flag defaults applied to the GD default holder.
+ * 
+ * <p>Transient defaults are only ever set with a claim type default context
+ * or the user default context so a resolved value depends only on the flag
+ * permission and the claim type. Each flag maps to a dense array indexed by
+ * claim type which is filled on first lookup and cleared whenever defaults
+ * are reapplied.</p>
+ */
+public class FlagDefaultTable {
+
+    private static final int ADMIN_INDEX = 0;
+    private static final int BASIC_INDEX = 1;
+    private static final int TOWN_INDEX = 2;
+    private static final int WILDERNESS_INDEX = 3;
+    private static final int TYPE_COUNT = 4;
+
+    private static FlagDefaultTable instance;
+
+    static {
+        instance = new FlagDefaultTable();
+    }
+
+    public static FlagDefaultTable getInstance() {
+        return instance;
+    }
+
+    // Flag permission -> Values indexed by claim type
+    private final Map<String, Tristate[]> defaultTable = new ConcurrentHashMap<>();
+    private volatile int generation = 0;
+
+    /**
+     * Gets a resolved transient default.
+     * 
+     * @param permission The flag permission
+     * @param typeContext The claim type default context
+     * @return The value or null if not resolved
+     */
+    public Tristate getIfPresent(String permission, Context typeContext) {
+        final int typeIndex = getTypeIndex(typeContext);
+        if (typeIndex == -1) {
+            return null;
+        }
+        final Tristate[] values = this.defaultTable.get(permission);
+        return values == null ? null : values[typeIndex];
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Puts a resolved transient default.
+     * 
+     * <p>The value is dropped if the table was invalidated since the
+     * generation was captured, as it may predate the refreshed defaults.</p>
+     * 
+     * @param permission The flag permission
+     * @param typeContext The claim type default context
+     * @param value The value
+     * @param generation The generation captured before resolving the value
+     */
+    public synchronized void put(String permission, Context typeContext, Tristate value, int generation) {
+        final int typeIndex = getTypeIndex(typeContext);
+        if (typeIndex == -1 || generation != this.generation) {
+            return;
+        }
+        this.defaultTable.computeIfAbsent(permission, k -> new Tristate[TYPE_COUNT])[typeIndex] = value;
+    }
+
+    public synchronized void invalidateAll() {
+        this.generation++;
+        this.defaultTable.clear();
+    }
+
+    private static int getTypeIndex(Context typeContext) {
+        if (typeContext == ClaimContexts.ADMIN_DEFAULT_CONTEXT) {
+            return ADMIN_INDEX;
+        }
+        if (typeContext == ClaimContexts.BASIC_DEFAULT_CONTEXT) {
+            return BASIC_INDEX;
+        }
+        if (typeContext == ClaimContexts.TOWN_DEFAULT_CONTEXT) {
+            return TOWN_INDEX;
+        }
+        if (typeContext == ClaimContexts.WILDERNESS_DEFAULT_CONTEXT) {
+            return WILDERNESS_INDEX;
+        }
+        return -1;
+    }
+}
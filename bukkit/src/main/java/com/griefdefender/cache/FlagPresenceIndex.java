@@ -0,0 +1,186 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.cache;
+
+import com.griefdefender.GriefDefenderPlugin;
+import com.griefdefender.api.permission.Context;
+import com.griefdefender.api.permission.ContextKeys;
+import com.griefdefender.provider.LuckPermsProvider;
+import com.griefdefender.provider.PermissionProvider;
+import com.griefdefender.util.PermissionUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records which permissions have any persistent node in the default holder chain.
+ * 
+ * <p>A permission is tracked with the claims it is scoped to and whether any
+ * node applies regardless of claim. The default holder is read with its
+ * inherited nodes so parent groups are covered. Lookups that could not
+ * match a node can then be skipped. The index is conservative, GD writes are added immediately
+ * and any group change drops the index until a rebuild completes. If wildcard
+ * or regex nodes exist, the index stays disabled.</p>
+ */
+public class FlagPresenceIndex {
+
+    private static FlagPresenceIndex instance;
+
+    static {
+        instance = new FlagPresenceIndex();
+    }
+
+    public static FlagPresenceIndex getInstance() {
+        return instance;
+    }
+
+    // Permission -> Presence, null if not built
+    private volatile Map<String, Presence> presenceMap;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Checks if a permission may have a node applying to contexts.
+     * 
+     * @param permission The permission
+     * @param contexts The contexts of the lookup
+     * @return False if no node can apply, true otherwise
+     */
+    public boolean mayContain(String permission, Set<Context> contexts) {
+        final Map<String, Presence> presenceMap = this.presenceMap;
+        if (presenceMap == null) {
+            return true;
+        }
+        final Presence presence = presenceMap.get(permission);
+        if (presence == null) {
+            return false;
+        }
+        if (presence.unscoped) {
+            return true;
+        }
+        for (Context context : contexts) {
+            if (context.getKey().equals(ContextKeys.CLAIM) && presence.claimIds.contains(context.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a permission being written with contexts.
+     * 
+     * @param permission The permission
+     * @param contexts The contexts of the node
+     */
+    public void add(String permission, Set<Context> contexts) {
+        final Map<String, Presence> presenceMap = this.presenceMap;
+        if (presenceMap == null) {
+            return;
+        }
+        if (isPattern(permission)) {
+            this.invalidate();
+            return;
+        }
+        presenceMap.computeIfAbsent(permission, k -> new Presence()).add(contexts);
+    }
+
+    /**
+     * Drops the index and schedules a rebuild.
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+        this.presenceMap = null;
+        this.rebuild();
+    }
+
+    public void rebuild() {
+        final int buildGeneration = this.generation.get();
+        GriefDefenderPlugin.getInstance().executor.execute(() -> {
+            final Map<String, Presence> builtMap = this.build();
+            if (builtMap != null && this.generation.get() == buildGeneration) {
+                this.presenceMap = builtMap;
+            }
+        });
+    }
+
+    private Map<String, Presence> build() {
+        final Map<String, Presence> builtMap = new ConcurrentHashMap<>();
+        try {
+            final PermissionProvider permissionProvider = GriefDefenderPlugin.getInstance().getPermissionProvider();
+            if (!(permissionProvider instanceof LuckPermsProvider)) {
+                return null;
+            }
+            final Map<Set<Context>, Map<String, Boolean>> permissions = new HashMap<>(PermissionUtil.getInstance().getAllPermanentPermissions());
+            // Lookups see the resolved data of the default holder, including nodes of parent groups
+            for (Map.Entry<Set<Context>, Map<String, Boolean>> mapEntry : ((LuckPermsProvider) permissionProvider).getResolvedPermanentPermissions(GriefDefenderPlugin.DEFAULT_HOLDER).entrySet()) {
+                final Map<String, Boolean> permissionEntry = permissions.get(mapEntry.getKey());
+                if (permissionEntry == null) {
+                    permissions.put(mapEntry.getKey(), mapEntry.getValue());
+                } else {
+                    permissionEntry.putAll(mapEntry.getValue());
+                }
+            }
+            for (Map.Entry<Set<Context>, Map<String, Boolean>> mapEntry : permissions.entrySet()) {
+                for (String permission : mapEntry.getValue().keySet()) {
+                    if (isPattern(permission)) {
+                        // Cannot tell which permissions a pattern applies to
+                        return null;
+                    }
+                    builtMap.computeIfAbsent(permission, k -> new Presence()).add(mapEntry.getKey());
+                }
+            }
+        } catch (Throwable t) {
+            GriefDefenderPlugin.getInstance().getLogger().warning("Could not build flag presence index: " + t.getMessage());
+            return null;
+        }
+        return builtMap;
+    }
+
+    private static boolean isPattern(String permission) {
+        return permission.indexOf('*') != -1 || permission.indexOf('(') != -1 || permission.regionMatches(true, 0, "r=", 0, 2);
+    }
+
+    private static final class Presence {
+
+        // Whether a node applies to any claim
+        volatile boolean unscoped;
+        final Set<String> claimIds = ConcurrentHashMap.newKeySet();
+
+        void add(Set<Context> contexts) {
+            boolean scoped = false;
+            for (Context context : contexts) {
+                if (context.getKey().equals(ContextKeys.CLAIM)) {
+                    this.claimIds.add(context.getValue());
+                    scoped = true;
+                }
+            }
+            if (!scoped) {
+                this.unscoped = true;
+            }
+        }
+    }
+}
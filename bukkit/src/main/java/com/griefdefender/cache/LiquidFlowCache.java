@@ -0,0 +1,218 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.griefdefender.api.Tristate;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.claim.GDClaim;
+import com.griefdefender.claim.GDClaimManager;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import org.bukkit.Material;
+
+/**
+ * Caches liquid flow results of a world.
+ * 
+ * <p>A flow result depends on the claim flowed into, the user notifying the
+ * flow and the state of both blocks. Results stay valid until the claim index
+ * of the world, any flag decision or the user trust of the claim changes,
+ * which is detected by comparing generations on lookup so flow within
+ * unchanged claims never reaches the permission manager.</p>
+ * 
+ * <p>Flow that stays within a single claim also keeps the last result of that
+ * claim, matched by claim identity and block types before any block state
+ * is read. Block state contexts therefore only apply to the first flow step
+ * of a claim and to flow crossing a claim boundary.</p>
+ * 
+ * <p>Note: This cache must only be accessed from the main thread.</p>
+ */
+public class LiquidFlowCache {
+
+    private static final int MAX_ENTRIES = 10000;
+
+    private final GDClaimManager claimManager;
+    private final Cache<Key, Entry> flowCache = Caffeine.newBuilder().maximumSize(MAX_ENTRIES).build();
+    private final Key lookupKey = new Key();
+    private int indexGeneration = -1;
+    private int decisionGeneration = -1;
+    // Last result of flow within a single claim
+    private GDClaim lastClaim;
+    private UUID lastUserUniqueId;
+    private Material lastFromType;
+    private Material lastToType;
+    private int lastTrustGeneration;
+    private Tristate lastResult;
+
+    public LiquidFlowCache(GDClaimManager claimManager) {
+        this.claimManager = claimManager;
+    }
+
+    /**
+     * Gets a cached flow result.
+     * 
+     * @param claim The claim flowed into
+     * @param userUniqueId The notifier unique id
+     * @param fromType The source block type
+     * @param fromState The source block state
+     * @param toType The target block type
+     * @param toState The target block state
+     * @return The result, null if not cached
+     */
+    public Tristate getIfPresent(Claim claim, UUID userUniqueId, Material fromType, String fromState, Material toType, String toState) {
+        if (!this.validate()) {
+            return null;
+        }
+
+        this.lookupKey.set(claim.getUniqueId(), userUniqueId, fromType, fromState, toType, toState);
+        final Entry entry = this.flowCache.getIfPresent(this.lookupKey);
+        // Don't hold on to block states
+        this.lookupKey.fromState = null;
+        this.lookupKey.toState = null;
+        if (entry == null || entry.trustGeneration != ((GDClaim) claim).getTrustGeneration()) {
+            return null;
+        }
+        return entry.result;
+    }
+
+    /**
+     * Gets the last result of flow within a claim.
+     * 
+     * @param claim The claim containing both blocks
+     * @param userUniqueId The notifier unique id
+     * @param fromType The source block type
+     * @param toType The target block type
+     * @return The result, null if not cached
+     */
+    public Tristate getSameClaimResult(GDClaim claim, UUID userUniqueId, Material fromType, Material toType) {
+        if (claim != this.lastClaim || !this.validate()) {
+            return null;
+        }
+        if (claim.getTrustGeneration() != this.lastTrustGeneration || fromType != this.lastFromType || toType != this.lastToType
+                || !userUniqueId.equals(this.lastUserUniqueId)) {
+            return null;
+        }
+        return this.lastResult;
+    }
+
+    public void putSameClaimResult(GDClaim claim, UUID userUniqueId, Material fromType, Material toType, Tristate result) {
+        this.lastClaim = claim;
+        this.lastUserUniqueId = userUniqueId;
+        this.lastFromType = fromType;
+        this.lastToType = toType;
+        this.lastTrustGeneration = claim.getTrustGeneration();
+        this.lastResult = result;
+    }
+
+    // Drops all results if claims or flag decisions changed since the last lookup
+    private boolean validate() {
+        final int indexGeneration = this.claimManager.getIndexGeneration();
+        final int decisionGeneration = FlagDecisionCache.getInstance().getGeneration();
+        if (indexGeneration != this.indexGeneration || decisionGeneration != this.decisionGeneration) {
+            this.invalidateAll();
+            this.indexGeneration = indexGeneration;
+            this.decisionGeneration = decisionGeneration;
+            return false;
+        }
+        return true;
+    }
+
+    public void put(Claim claim, UUID userUniqueId, Material fromType, String fromState, Material toType, String toState, Tristate result) {
+        final Key key = new Key();
+        key.set(claim.getUniqueId(), userUniqueId, fromType, fromState, toType, toState);
+        this.flowCache.put(key, new Entry(result, ((GDClaim) claim).getTrustGeneration()));
+    }
+
+    public void invalidateAll() {
+        this.flowCache.invalidateAll();
+        this.lastClaim = null;
+        this.lastUserUniqueId = null;
+        this.lastResult = null;
+    }
+
+    private static final class Entry {
+
+        final Tristate result;
+        final int trustGeneration;
+
+        Entry(Tristate result, int trustGeneration) {
+            this.result = result;
+            this.trustGeneration = trustGeneration;
+        }
+    }
+
+    private static final class Key {
+
+        UUID claimUniqueId;
+        UUID userUniqueId;
+        Material fromType;
+        String fromState;
+        Material toType;
+        String toState;
+        int hashCode;
+
+        void set(UUID claimUniqueId, UUID userUniqueId, Material fromType, String fromState, Material toType, String toState) {
+            this.claimUniqueId = claimUniqueId;
+            this.userUniqueId = userUniqueId;
+            this.fromType = fromType;
+            this.fromState = fromState;
+            this.toType = toType;
+            this.toState = toState;
+            int result = claimUniqueId.hashCode();
+            result = 31 * result + userUniqueId.hashCode();
+            result = 31 * result + fromType.hashCode();
+            result = 31 * result + Objects.hashCode(fromState);
+            result = 31 * result + toType.hashCode();
+            result = 31 * result + Objects.hashCode(toState);
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.hashCode == other.hashCode
+                    && this.fromType == other.fromType
+                    && this.toType == other.toType
+                    && this.claimUniqueId.equals(other.claimUniqueId)
+                    && this.userUniqueId.equals(other.userUniqueId)
+                    && Objects.equals(this.fromState, other.fromState)
+                    && Objects.equals(this.toState, other.toState);
+        }
+    }
+}
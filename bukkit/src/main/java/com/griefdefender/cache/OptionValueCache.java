@@ -0,0 +1,185 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableSet;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.api.claim.ClaimType;
+import com.griefdefender.api.permission.Context;
+import com.griefdefender.api.permission.option.Option;
+import com.griefdefender.permission.GDPermissionHolder;
+import com.griefdefender.permission.GDPermissionUser;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches resolved option values.
+ * 
+ * <p>A value is keyed by the holder, option, claim, claim type and the active
+ * contexts used to resolve it. Values are stored already converted to the
+ * option type, including any fallback to the default holder.</p>
+ * 
+ * <p>Every invalidation bumps a generation so values resolved while an
+ * invalidation ran are not cached.</p>
+ */
+public class OptionValueCache {
+
+    private static final int MAX_ENTRIES = 20000;
+    // Caffeine does not allow null values
+    private static final Object NULL_VALUE = new Object();
+
+    private static OptionValueCache instance;
+
+    static {
+        instance = new OptionValueCache();
+    }
+
+    public static OptionValueCache getInstance() {
+        return instance;
+    }
+
+    private final Cache<Key, Object> valueCache = Caffeine.newBuilder().maximumSize(MAX_ENTRIES).build();
+    private final ThreadLocal<Key> lookupKey = ThreadLocal.withInitial(Key::new);
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Gets a cached option value.
+     * 
+     * @return The value, a value matching {@link #isNullValue(Object)} if resolved to null or null if not cached
+     */
+    public Object getIfPresent(GDPermissionHolder holder, Option<?> option, Claim claim, ClaimType claimType, Set<Context> contexts) {
+        final Key key = this.lookupKey.get();
+        key.set(holder.getIdentifier(), option.getPermission(), claim == null ? null : claim.getUniqueId(), claimType, contexts);
+        final Object value = this.valueCache.getIfPresent(key);
+        // Don't hold on to active contexts
+        key.contexts = null;
+        return value;
+    }
+
+    public int getGeneration() {
+        return this.generation.get();
+    }
+
+    /**
+     * Caches an option value.
+     * 
+     * <p>The value is dropped if any invalidation happened since the
+     * generation was captured, as it may have been resolved from stale data.</p>
+     * 
+     * @param generation The generation captured before resolving the value
+     */
+    public synchronized void put(GDPermissionHolder holder, Option<?> option, Claim claim, ClaimType claimType, Set<Context> contexts, Object value, int generation) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+        final Key key = new Key();
+        key.set(holder.getIdentifier(), option.getPermission(), claim == null ? null : claim.getUniqueId(), claimType, ImmutableSet.copyOf(contexts));
+        this.valueCache.put(key, value == null ? NULL_VALUE : value);
+    }
+
+    public static boolean isNullValue(Object value) {
+        return value == NULL_VALUE;
+    }
+
+    /**
+     * Invalidates all values affected by a change to a holder.
+     * 
+     * <p>Users fall back to groups and the default holder so any
+     * non-user change invalidates all values.</p>
+     * 
+     * @param holder The holder
+     */
+    public synchronized void invalidate(GDPermissionHolder holder) {
+        this.generation.incrementAndGet();
+        if (holder instanceof GDPermissionUser) {
+            final String identifier = holder.getIdentifier();
+            this.valueCache.asMap().keySet().removeIf(key -> key.holder.equals(identifier));
+        } else {
+            this.invalidateAll();
+        }
+    }
+
+    public synchronized void invalidate(Claim claim) {
+        this.generation.incrementAndGet();
+        final UUID claimUniqueId = claim.getUniqueId();
+        this.valueCache.asMap().keySet().removeIf(key -> claimUniqueId.equals(key.claimUniqueId));
+    }
+
+    public synchronized void invalidateAll() {
+        this.generation.incrementAndGet();
+        this.valueCache.invalidateAll();
+    }
+
+    private static final class Key {
+
+        String holder;
+        String option;
+        UUID claimUniqueId;
+        ClaimType claimType;
+        Set<Context> contexts;
+        int hashCode;
+
+        void set(String holder, String option, UUID claimUniqueId, ClaimType claimType, Set<Context> contexts) {
+            this.holder = holder;
+            this.option = option;
+            this.claimUniqueId = claimUniqueId;
+            this.claimType = claimType;
+            this.contexts = contexts;
+            int result = holder.hashCode();
+            result = 31 * result + option.hashCode();
+            result = 31 * result + Objects.hashCode(claimUniqueId);
+            result = 31 * result + Objects.hashCode(claimType);
+            result = 31 * result + contexts.hashCode();
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.hashCode == other.hashCode
+                    && this.holder.equals(other.holder)
+                    && this.option.equals(other.option)
+                    && Objects.equals(this.claimUniqueId, other.claimUniqueId)
+                    && Objects.equals(this.claimType, other.claimType)
+                    && this.contexts.equals(other.contexts);
+        }
+    }
+}
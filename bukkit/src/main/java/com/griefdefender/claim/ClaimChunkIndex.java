@@ -0,0 +1,253 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.claim;
+
+import com.google.common.collect.ImmutableSet;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.util.BlockUtil;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A two-level index of top level claims by chunk.
+ *
+ * <p>Claims are first indexed by region (32x32 chunks). A claim that fully
+ * covers a region is stored once for that region while chunk buckets are only
+ * created for regions a claim partially covers. This keeps the amount of
+ * buckets bounded by the perimeter of a claim rather than its area.</p>
+ *
+ * <p>Buckets are stored as arrays in primitive long keyed maps and are
+ * replaced rather than mutated so lookups never allocate.</p>
+ */
+public class ClaimChunkIndex {
+
+    private static final int REGION_SHIFT = 5;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final Claim[] EMPTY_BUCKET = new Claim[0];
+
+    // Region key -> Claims fully covering region
+    private final Long2ObjectOpenHashMap<Claim[]> regionsToClaimsMap = new Long2ObjectOpenHashMap<>();
+    // Chunk key -> Claims partially covering region of chunk
+    private final Long2ObjectOpenHashMap<Claim[]> chunksToClaimsMap = new Long2ObjectOpenHashMap<>();
+    // Claim UUID -> Indexed chunk bounds
+    private final Map<UUID, int[]> claimChunkBounds = new HashMap<>();
+    private final Map<Long, Set<Claim>> mapView = new ChunkMapView();
+
+    public void add(GDClaim claim) {
+        this.remove(claim);
+        final int[] chunkBounds = new int[] {
+                claim.lesserBoundaryCorner.getX() >> 4,
+                claim.lesserBoundaryCorner.getZ() >> 4,
+                claim.greaterBoundaryCorner.getX() >> 4,
+                claim.greaterBoundaryCorner.getZ() >> 4
+        };
+        this.claimChunkBounds.put(claim.getUniqueId(), chunkBounds);
+        this.update(claim, chunkBounds, true);
+    }
+
+    public void remove(GDClaim claim) {
+        final int[] chunkBounds = this.claimChunkBounds.remove(claim.getUniqueId());
+        if (chunkBounds != null) {
+            this.update(claim, chunkBounds, false);
+        }
+    }
+
+    public void clear() {
+        this.regionsToClaimsMap.clear();
+        this.chunksToClaimsMap.clear();
+        this.claimChunkBounds.clear();
+    }
+
+    public boolean hasClaims(int chunkX, int chunkZ) {
+        return this.chunksToClaimsMap.containsKey(BlockUtil.getInstance().asLong(chunkX, chunkZ))
+                || this.regionsToClaimsMap.containsKey(BlockUtil.getInstance().asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT));
+    }
+
+    /**
+     * Gets the claims fully covering the region of a chunk.
+     * 
+     * <p>Note: The returned array must not be modified.</p>
+     * 
+     * @return The claims, empty if none
+     */
+    public Claim[] getRegionBucket(int chunkX, int chunkZ) {
+        final Claim[] claims = this.regionsToClaimsMap.get(BlockUtil.getInstance().asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT));
+        return claims == null ? EMPTY_BUCKET : claims;
+    }
+
+    /**
+     * Gets the claims within a chunk that only partially cover its region.
+     * 
+     * <p>Note: The returned array must not be modified.</p>
+     * 
+     * @return The claims, empty if none
+     */
+    public Claim[] getChunkBucket(int chunkX, int chunkZ) {
+        final Claim[] claims = this.chunksToClaimsMap.get(BlockUtil.getInstance().asLong(chunkX, chunkZ));
+        return claims == null ? EMPTY_BUCKET : claims;
+    }
+
+    /**
+     * Gets all top level claims within a chunk.
+     * 
+     * @return An immutable set of claims, empty if none
+     */
+    public Set<Claim> getClaims(int chunkX, int chunkZ) {
+        final Claim[] regionClaims = this.getRegionBucket(chunkX, chunkZ);
+        final Claim[] chunkClaims = this.getChunkBucket(chunkX, chunkZ);
+        if (regionClaims.length == 0 && chunkClaims.length == 0) {
+            return ImmutableSet.of();
+        }
+
+        return ImmutableSet.<Claim>builder().add(regionClaims).add(chunkClaims).build();
+    }
+
+    public Set<Claim> getClaims(long chunkKey) {
+        return this.getClaims((int) chunkKey, (int) (chunkKey >>> 32));
+    }
+
+    /**
+     * Gets a read-only map view of chunk key to claims.
+     * 
+     * <p>Note: Iterating this view expands every region bucket into
+     * its chunks and should be avoided on hot paths.</p>
+     * 
+     * @return The map view
+     */
+    public Map<Long, Set<Claim>> asMap() {
+        return this.mapView;
+    }
+
+    private void update(Claim claim, int[] chunkBounds, boolean add) {
+        final int minRegionX = chunkBounds[0] >> REGION_SHIFT;
+        final int minRegionZ = chunkBounds[1] >> REGION_SHIFT;
+        final int maxRegionX = chunkBounds[2] >> REGION_SHIFT;
+        final int maxRegionZ = chunkBounds[3] >> REGION_SHIFT;
+        for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+            for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+                final int regionMinChunkX = regionX << REGION_SHIFT;
+                final int regionMinChunkZ = regionZ << REGION_SHIFT;
+                final int regionMaxChunkX = regionMinChunkX + REGION_SIZE - 1;
+                final int regionMaxChunkZ = regionMinChunkZ + REGION_SIZE - 1;
+                if (chunkBounds[0] <= regionMinChunkX && chunkBounds[2] >= regionMaxChunkX
+                        && chunkBounds[1] <= regionMinChunkZ && chunkBounds[3] >= regionMaxChunkZ) {
+                    updateBucket(this.regionsToClaimsMap, BlockUtil.getInstance().asLong(regionX, regionZ), claim, add);
+                    continue;
+                }
+
+                final int minChunkX = Math.max(chunkBounds[0], regionMinChunkX);
+                final int minChunkZ = Math.max(chunkBounds[1], regionMinChunkZ);
+                final int maxChunkX = Math.min(chunkBounds[2], regionMaxChunkX);
+                final int maxChunkZ = Math.min(chunkBounds[3], regionMaxChunkZ);
+                for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                    for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                        updateBucket(this.chunksToClaimsMap, BlockUtil.getInstance().asLong(chunkX, chunkZ), claim, add);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void updateBucket(Long2ObjectOpenHashMap<Claim[]> map, long key, Claim claim, boolean add) {
+        final Claim[] claims = map.get(key);
+        int index = -1;
+        if (claims != null) {
+            for (int i = 0; i < claims.length; i++) {
+                if (claims[i] == claim) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+
+        if (add) {
+            if (claims == null) {
+                map.put(key, new Claim[] {claim});
+            } else if (index == -1) {
+                final Claim[] newClaims = Arrays.copyOf(claims, claims.length + 1);
+                newClaims[claims.length] = claim;
+                map.put(key, newClaims);
+            }
+        } else if (index != -1) {
+            if (claims.length == 1) {
+                map.remove(key);
+                return;
+            }
+            final Claim[] newClaims = new Claim[claims.length - 1];
+            System.arraycopy(claims, 0, newClaims, 0, index);
+            System.arraycopy(claims, index + 1, newClaims, index, claims.length - index - 1);
+            map.put(key, newClaims);
+        }
+    }
+
+    private class ChunkMapView extends AbstractMap<Long, Set<Claim>> {
+
+        @Override
+        public Set<Claim> get(Object key) {
+            if (!(key instanceof Long)) {
+                return null;
+            }
+            final Set<Claim> claims = getClaims((Long) key);
+            return claims.isEmpty() ? null : claims;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof Long)) {
+                return false;
+            }
+            final long chunkKey = (Long) key;
+            return hasClaims((int) chunkKey, (int) (chunkKey >>> 32));
+        }
+
+        @Override
+        public Set<Entry<Long, Set<Claim>>> entrySet() {
+            final Map<Long, Set<Claim>> chunkMap = new HashMap<>();
+            for (Long2ObjectMap.Entry<Claim[]> mapEntry : chunksToClaimsMap.long2ObjectEntrySet()) {
+                chunkMap.put(mapEntry.getLongKey(), new HashSet<>(Arrays.asList(mapEntry.getValue())));
+            }
+            for (Long2ObjectMap.Entry<Claim[]> mapEntry : regionsToClaimsMap.long2ObjectEntrySet()) {
+                final long regionKey = mapEntry.getLongKey();
+                final int regionMinChunkX = ((int) regionKey) << REGION_SHIFT;
+                final int regionMinChunkZ = ((int) (regionKey >>> 32)) << REGION_SHIFT;
+                for (int chunkX = regionMinChunkX; chunkX < regionMinChunkX + REGION_SIZE; chunkX++) {
+                    for (int chunkZ = regionMinChunkZ; chunkZ < regionMinChunkZ + REGION_SIZE; chunkZ++) {
+                        chunkMap.computeIfAbsent(BlockUtil.getInstance().asLong(chunkX, chunkZ), k -> new HashSet<>()).addAll(Arrays.asList(mapEntry.getValue()));
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(chunkMap).entrySet();
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.claim;
+
+import com.griefdefender.GDPlayerData;
+import com.griefdefender.api.claim.Claim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A dynamic R-tree over the x/z bounds of the top level claims in a world.
+ *
+ * <p>Only top level claims are stored. Once a top level claim containing a
+ * position is found, its children are walked to resolve the innermost claim.</p>
+ */
+public class ClaimSpatialIndex {
+
+    private static final int MAX_ENTRIES = 16;
+    private static final int MIN_ENTRIES = 6;
+
+    // Claim UUID -> Leaf entry
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private Node root = new Node(true);
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public boolean contains(GDClaim claim) {
+        return this.entries.containsKey(claim.getUniqueId());
+    }
+
+    public void clear() {
+        this.entries.clear();
+        this.root = new Node(true);
+    }
+
+    /**
+     * Inserts a claim using its current bounds.
+     * 
+     * <p>If the claim is already indexed, its previous entry is replaced.</p>
+     * 
+     * @param claim The claim
+     */
+    public void insert(GDClaim claim) {
+        this.remove(claim);
+        final Entry entry = new Entry(claim);
+        this.entries.put(claim.getUniqueId(), entry);
+        this.insertEntry(entry);
+    }
+
+    /**
+     * Removes a claim using the bounds it was indexed with.
+     * 
+     * @param claim The claim
+     * @return Whether the claim was indexed
+     */
+    public boolean remove(GDClaim claim) {
+        final Entry entry = this.entries.remove(claim.getUniqueId());
+        if (entry == null) {
+            return false;
+        }
+
+        final Node leaf = this.findLeaf(this.root, entry);
+        if (leaf == null) {
+            return false;
+        }
+        leaf.remove(entry);
+        this.condenseTree(leaf);
+        return true;
+    }
+
+    /**
+     * Gets the innermost claim at a position.
+     * 
+     * @return The claim or null if position is in wilderness
+     */
+    public GDClaim getClaimAt(int x, int y, int z, GDPlayerData playerData, boolean useBorderBlockRadius) {
+        return findClaimAt(this.root, x, y, z, 0, playerData, useBorderBlockRadius);
+    }
+
+    /**
+     * Gets the innermost claim at a position with all bounds inflated by a
+     * border radius.
+     * 
+     * <p>Inflating every box by the same amount keeps each node enclosing
+     * its children so the tree can be searched as if it indexed the
+     * inflated bounds.</p>
+     * 
+     * @return The claim or null if position is in wilderness
+     */
+    public GDClaim getClaimAt(int x, int y, int z, int borderBlockRadius, GDPlayerData playerData) {
+        return findClaimAt(this.root, x, y, z, borderBlockRadius, playerData, true);
+    }
+
+    /**
+     * Collects all top level claims whose bounds intersect the area.
+     */
+    public void query(int minX, int minZ, int maxX, int maxZ, Collection<? super GDClaim> results) {
+        query(this.root, minX, minZ, maxX, maxZ, results);
+    }
+
+    private static GDClaim findClaimAt(Node node, int x, int y, int z, int radius, GDPlayerData playerData, boolean useBorderBlockRadius) {
+        for (int i = 0; i < node.size; i++) {
+            final Box box = node.items[i];
+            if (!box.contains(x, z, radius)) {
+                continue;
+            }
+
+            final GDClaim foundClaim;
+            if (node.leaf) {
+                foundClaim = findClaim(((Entry) box).claim, x, y, z, playerData, useBorderBlockRadius);
+            } else {
+                foundClaim = findClaimAt((Node) box, x, y, z, radius, playerData, useBorderBlockRadius);
+            }
+            if (foundClaim != null) {
+                return foundClaim;
+            }
+        }
+        return null;
+    }
+
+    private static void query(Node node, int minX, int minZ, int maxX, int maxZ, Collection<? super GDClaim> results) {
+        for (int i = 0; i < node.size; i++) {
+            final Box box = node.items[i];
+            if (!box.intersects(minX, minZ, maxX, maxZ)) {
+                continue;
+            }
+            if (node.leaf) {
+                results.add(((Entry) box).claim);
+            } else {
+                query((Node) box, minX, minZ, maxX, maxZ, results);
+            }
+        }
+    }
+
+    static GDClaim findClaim(GDClaim claim, int x, int y, int z, GDPlayerData playerData, boolean useBorderBlockRadius) {
+        if (claim.contains(x, y, z, false, playerData, useBorderBlockRadius)) {
+            // when we find a top level claim, if the location is in one of its children,
+            // return the child claim, not the top level claim
+            for (Claim childClaim : claim.children) {
+                GDClaim child = (GDClaim) childClaim;
+                if (!child.children.isEmpty()) {
+                    GDClaim innerChild = findClaim(child, x, y, z, playerData, useBorderBlockRadius);
+                    if (innerChild != null) {
+                        return innerChild;
+                    }
+                }
+                // check if child has children (Town -> Basic -> Subdivision)
+                if (child.contains(x, y, z, false, playerData, useBorderBlockRadius)) {
+                    return child;
+                }
+            }
+            return claim;
+        }
+        return null;
+    }
+
+    private void insertEntry(Entry entry) {
+        Node node = this.root;
+        while (!node.leaf) {
+            Node bestChild = null;
+            long bestEnlargement = Long.MAX_VALUE;
+            long bestArea = Long.MAX_VALUE;
+            for (int i = 0; i < node.size; i++) {
+                final Node child = (Node) node.items[i];
+                final long area = child.area();
+                final long enlargement = child.unionArea(entry) - area;
+                if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                    bestChild = child;
+                    bestEnlargement = enlargement;
+                    bestArea = area;
+                }
+            }
+            node = bestChild;
+        }
+
+        node.add(entry);
+        this.adjustTree(node);
+    }
+
+    private void adjustTree(Node node) {
+        while (node != null) {
+            Node sibling = null;
+            if (node.size > MAX_ENTRIES) {
+                sibling = this.split(node);
+            } else {
+                node.recalculate();
+            }
+
+            final Node parent = node.parent;
+            if (sibling != null) {
+                if (parent == null) {
+                    final Node newRoot = new Node(false);
+                    newRoot.add(node);
+                    newRoot.add(sibling);
+                    newRoot.recalculate();
+                    this.root = newRoot;
+                    return;
+                }
+                parent.add(sibling);
+            }
+            node = parent;
+        }
+    }
+
+    // Quadratic split
+    private Node split(Node node) {
+        final Box[] items = Arrays.copyOf(node.items, node.size);
+        node.clear();
+        final Node sibling = new Node(node.leaf);
+
+        int seed1 = 0;
+        int seed2 = 1;
+        long worstWaste = Long.MIN_VALUE;
+        for (int i = 0; i < items.length; i++) {
+            for (int j = i + 1; j < items.length; j++) {
+                final long waste = items[i].unionArea(items[j]) - items[i].area() - items[j].area();
+                if (waste > worstWaste) {
+                    worstWaste = waste;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+
+        node.add(items[seed1]);
+        node.recalculate();
+        sibling.add(items[seed2]);
+        sibling.recalculate();
+        items[seed1] = null;
+        items[seed2] = null;
+
+        int remaining = items.length - 2;
+        while (remaining > 0) {
+            // Make sure both nodes end up with the minimum amount of entries
+            final Node underfilled = node.size + remaining <= MIN_ENTRIES ? node : sibling.size + remaining <= MIN_ENTRIES ? sibling : null;
+            if (underfilled != null) {
+                for (int i = 0; i < items.length; i++) {
+                    if (items[i] != null) {
+                        underfilled.add(items[i]);
+                        items[i] = null;
+                    }
+                }
+                underfilled.recalculate();
+                break;
+            }
+
+            int next = -1;
+            long maxDifference = -1;
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == null) {
+                    continue;
+                }
+                final long difference = Math.abs(node.enlargement(items[i]) - sibling.enlargement(items[i]));
+                if (difference > maxDifference) {
+                    maxDifference = difference;
+                    next = i;
+                }
+            }
+
+            final Box item = items[next];
+            items[next] = null;
+            remaining--;
+            final long enlargement1 = node.enlargement(item);
+            final long enlargement2 = sibling.enlargement(item);
+            final Node target;
+            if (enlargement1 != enlargement2) {
+                target = enlargement1 < enlargement2 ? node : sibling;
+            } else if (node.area() != sibling.area()) {
+                target = node.area() < sibling.area() ? node : sibling;
+            } else {
+                target = node.size <= sibling.size ? node : sibling;
+            }
+            target.add(item);
+            target.extend(item);
+        }
+
+        return sibling;
+    }
+
+    private Node findLeaf(Node node, Entry entry) {
+        if (node.leaf) {
+            for (int i = 0; i < node.size; i++) {
+                if (node.items[i] == entry) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        for (int i = 0; i < node.size; i++) {
+            final Node child = (Node) node.items[i];
+            if (child.encloses(entry)) {
+                final Node leaf = this.findLeaf(child, entry);
+                if (leaf != null) {
+                    return leaf;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void condenseTree(Node node) {
+        final List<Entry> orphans = new ArrayList<>();
+        while (node != this.root) {
+            final Node parent = node.parent;
+            if (node.size < MIN_ENTRIES) {
+                parent.remove(node);
+                node.collectEntries(orphans);
+            } else {
+                node.recalculate();
+            }
+            node = parent;
+        }
+
+        this.root.recalculate();
+        while (!this.root.leaf && this.root.size == 1) {
+            this.root = (Node) this.root.items[0];
+            this.root.parent = null;
+        }
+        if (!this.root.leaf && this.root.size == 0) {
+            this.root = new Node(true);
+        }
+        for (Entry orphan : orphans) {
+            this.insertEntry(orphan);
+        }
+    }
+
+    private static class Box {
+
+        int minX;
+        int minZ;
+        int maxX;
+        int maxZ;
+
+        boolean contains(int x, int z, int radius) {
+            return x >= this.minX - radius && x <= this.maxX + radius && z >= this.minZ - radius && z <= this.maxZ + radius;
+        }
+
+        boolean intersects(int minX, int minZ, int maxX, int maxZ) {
+            return this.minX <= maxX && this.maxX >= minX && this.minZ <= maxZ && this.maxZ >= minZ;
+        }
+
+        boolean encloses(Box other) {
+            return other.minX >= this.minX && other.maxX <= this.maxX && other.minZ >= this.minZ && other.maxZ <= this.maxZ;
+        }
+
+        long area() {
+            return ((long) this.maxX - this.minX + 1) * ((long) this.maxZ - this.minZ + 1);
+        }
+
+        long unionArea(Box other) {
+            final long width = (long) Math.max(this.maxX, other.maxX) - Math.min(this.minX, other.minX) + 1;
+            final long length = (long) Math.max(this.maxZ, other.maxZ) - Math.min(this.minZ, other.minZ) + 1;
+            return width * length;
+        }
+
+        long enlargement(Box other) {
+            return this.unionArea(other) - this.area();
+        }
+
+        void extend(Box other) {
+            this.minX = Math.min(this.minX, other.minX);
+            this.minZ = Math.min(this.minZ, other.minZ);
+            this.maxX = Math.max(this.maxX, other.maxX);
+            this.maxZ = Math.max(this.maxZ, other.maxZ);
+        }
+    }
+
+    private static final class Entry extends Box {
+
+        final GDClaim claim;
+
+        Entry(GDClaim claim) {
+            this.claim = claim;
+            this.minX = claim.lesserBoundaryCorner.getX();
+            this.minZ = claim.lesserBoundaryCorner.getZ();
+            this.maxX = claim.greaterBoundaryCorner.getX();
+            this.maxZ = claim.greaterBoundaryCorner.getZ();
+        }
+    }
+
+    private static final class Node extends Box {
+
+        final boolean leaf;
+        final Box[] items = new Box[MAX_ENTRIES + 1];
+        int size;
+        Node parent;
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+            this.recalculate();
+        }
+
+        void add(Box box) {
+            this.items[this.size++] = box;
+            if (box instanceof Node) {
+                ((Node) box).parent = this;
+            }
+        }
+
+        void remove(Box box) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.items[i] == box) {
+                    this.items[i] = this.items[--this.size];
+                    this.items[this.size] = null;
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(this.items, null);
+            this.size = 0;
+        }
+
+        void recalculate() {
+            if (this.size == 0) {
+                // An empty node never matches any query
+                this.minX = Integer.MAX_VALUE;
+                this.minZ = Integer.MAX_VALUE;
+                this.maxX = Integer.MIN_VALUE;
+                this.maxZ = Integer.MIN_VALUE;
+                return;
+            }
+
+            final Box first = this.items[0];
+            this.minX = first.minX;
+            this.minZ = first.minZ;
+            this.maxX = first.maxX;
+            this.maxZ = first.maxZ;
+            for (int i = 1; i < this.size; i++) {
+                this.extend(this.items[i]);
+            }
+        }
+
+        void collectEntries(List<Entry> entries) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.leaf) {
+                    entries.add((Entry) this.items[i]);
+                } else {
+                    ((Node) this.items[i]).collectEntries(entries);
+                }
+            }
+        }
+    }
+}
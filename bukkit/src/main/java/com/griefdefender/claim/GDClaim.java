@@ -56,7 +56,9 @@
 import com.griefdefender.api.permission.ContextKeys;
 import com.griefdefender.api.permission.flag.Flags;
 import com.griefdefender.api.permission.option.Options;
+import com.griefdefender.cache.FlagDecisionCache;
 import com.griefdefender.cache.MessageCache;
+import com.griefdefender.cache.OptionValueCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.configuration.ClaimDataConfig;
 import com.griefdefender.configuration.ClaimStorageData;
@@ -75,6 +77,7 @@
 import com.griefdefender.internal.provider.WorldGuardProvider;
 import com.griefdefender.internal.registry.GDEntityType;
 import com.griefdefender.internal.tracking.chunk.GDChunk;
+import com.griefdefender.internal.util.NMSUtil;
 import com.griefdefender.internal.util.VecHelper;
 import com.griefdefender.internal.visual.GDClaimVisual;
 import com.griefdefender.permission.GDPermissionHolder;
@@ -88,6 +91,8 @@
 import com.griefdefender.util.EconomyUtil;
 import com.griefdefender.util.PermissionUtil;
 
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.kyori.text.Component;
 import net.kyori.text.TextComponent;
 import net.kyori.text.format.TextColor;
@@ -117,6 +122,8 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GDClaim implements Claim {
 
@@ -126,7 +133,7 @@ public class GDClaim implements Claim {
     public Vector3i greaterBoundaryCorner;
     private World world;
     private ClaimType type = ClaimTypes.BASIC;
-    private Set<Long> chunkHashes;
+    private LongSet chunkHashes;
     private final int hashCode;
     private final GDClaimManager worldClaimManager;
     private final Claim wildernessClaim;
@@ -151,9 +158,22 @@ public class GDClaim implements Claim {
     public Map<String, ClaimSchematic> schematics = new HashMap<>();
     public Set<UUID> playersWatching = new HashSet<>();
     public Set<Claim> children = new HashSet<>();
-    public Set<Long> loadedChunkHashes = new HashSet<>();
+    public LongSet loadedChunkHashes = new LongOpenHashSet();
 
     private GDPlayerData ownerPlayerData;
+    // Incremented whenever the user trust of this claim or a parent changes
+    private final AtomicInteger trustGeneration = new AtomicInteger();
+    private volatile int inheritedTrustTick = -1;
+    // Trust type -> User UUID -> Group or parent trust result
+    private final Map<TrustType, Map<UUID, Boolean>> inheritedTrustCache = new ConcurrentHashMap<>();
+    // Incremented whenever group permissions or claim inheritance change
+    private static final AtomicInteger groupTrustGeneration = new AtomicInteger();
+    private volatile int groupTrustCacheGeneration = -1;
+    // Trust type -> Group name -> Trust result
+    private final Map<TrustType, Map<String, Boolean>> groupTrustCache = new ConcurrentHashMap<>();
+    // Cleared by hierarchy changes, null until resolved
+    private volatile List<Claim> inheritedParents;
+    private final AtomicInteger inheritedParentsGeneration = new AtomicInteger();
 
     public GDClaim(World world, Vector3i point1, Vector3i point2, ClaimType type, UUID ownerUniqueId, boolean cuboid) {
         this(world, point1, point2, type, ownerUniqueId, cuboid, null);
@@ -241,6 +261,7 @@ public void initializeClaimData(GDClaim parent) {
             this.claimStorage = new ClaimStorageData(claimFile.toPath(), this.world.getUID(), this.ownerUniqueId, this.type, this.cuboid);
         }
         this.claimData = this.claimStorage.getConfig();
+        ((ClaimDataConfig) this.claimData).setClaim(this);
         this.parent = parent;
         if (parent != null) {
             this.claimStorage.getConfig().setParent(parent.getUniqueId());
@@ -257,6 +278,8 @@ public void setType(ClaimType type) {
         if (this.claimData != null) {
             this.claimData.setType(type);
         }
+        // Admin claims only inherit from admin parents
+        this.invalidateInheritedParents();
     }
 
     @Override
@@ -599,7 +622,7 @@ public boolean contains(int x, int y, int z, boolean excludeChildren, GDPlayerDa
         int borderBlockRadius = 0;
         if (useBorderBlockRadius && (playerData != null && !playerData.bypassBorderCheck)) {
             final int borderRadiusConfig = GriefDefenderPlugin.getActiveConfig(this.world.getUID()).getConfig().claim.borderBlockRadius;
-            if (borderRadiusConfig > 0 && !this.isUserTrusted(playerData.getSubject(), TrustTypes.BUILDER)) {
+            if (borderRadiusConfig > 0 && !playerData.isBorderTrusted(this)) {
                 borderBlockRadius = borderRadiusConfig;
             }
         }
@@ -853,7 +876,7 @@ public Set<Long> getChunkHashes(boolean refresh) {
             return this.loadedChunkHashes;
         }
         if (this.chunkHashes == null || refresh) {
-            this.chunkHashes = new HashSet<Long>();
+            this.chunkHashes = new LongOpenHashSet();
             int smallX = this.lesserBoundaryCorner.getX() >> 4;
             int smallZ = this.lesserBoundaryCorner.getZ() >> 4;
             int largeX = this.greaterBoundaryCorner.getX() >> 4;
@@ -899,6 +922,7 @@ public ClaimStorageData getClaimStorage() {
 
     public void setClaimData(IClaimData data) {
         this.claimData = data;
+        ((ClaimDataConfig) data).setClaim(this);
     }
 
     public void setClaimStorage(ClaimStorageData storage) {
@@ -992,6 +1016,7 @@ public ClaimResult transferOwner(UUID newOwnerID, boolean checkEconomy, boolean
             this.type = ClaimTypes.BASIC;
             this.getVisualizer().setType(ClaimVisualTypes.BASIC);
             this.claimData.setType(ClaimTypes.BASIC);
+            this.invalidateInheritedParents();
         }
 
         this.ownerUniqueId = event.getNewOwner();
@@ -1004,6 +1029,7 @@ public ClaimResult transferOwner(UUID newOwnerID, boolean checkEconomy, boolean
             ownerData.getInternalClaims().remove(this);
             newOwnerData.getInternalClaims().add(this);
         }
+        GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(this.world.getUID()).updateOwnerIndex(this);
 
         this.ownerPlayerData = newOwnerData;
         this.getClaimStorage().save();
@@ -1020,6 +1046,8 @@ public ClaimResult transferOwner(UUID newOwnerID, boolean checkEconomy, boolean
                 }
             }
         }
+        // The owner is implicitly trusted, so drop results cached for the old owner
+        this.onUserTrustChanged();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
     }
 
@@ -1055,20 +1083,16 @@ public ClaimResult doesClaimOverlap() {
         }
 
         final GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(this.world.getUID());
-        final Set<Long> chunkHashes = this.getChunkHashes(true);
+        // Bounds may have changed so rebuild chunk hashes on next access
+        this.chunkHashes = null;
 
-        // Since there is no parent we need to check all claims stored in chunk hashes
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk == null || claimsInChunk.size() == 0) {
-                continue;
-            }
-            for (Claim child : claimsInChunk) {
-                final GDClaim gpChild = (GDClaim) child;
-                // First check if newly resized claim is crossing another
-                if (this.isBandingAcross(gpChild) || gpChild.isBandingAcross(this)) {
-                    return new GDClaimResult(child, ClaimResultType.OVERLAPPING_CLAIM);
-                }
+        // Since there is no parent we need to check all top level claims within area
+        final List<GDClaim> nearbyClaims = claimWorldManager.getClaimsInArea(this.lesserBoundaryCorner.getX(), this.lesserBoundaryCorner.getZ(),
+                this.greaterBoundaryCorner.getX(), this.greaterBoundaryCorner.getZ());
+        for (GDClaim gpChild : nearbyClaims) {
+            // First check if newly resized claim is crossing another
+            if (this.isBandingAcross(gpChild) || gpChild.isBandingAcross(this)) {
+                return new GDClaimResult(gpChild, ClaimResultType.OVERLAPPING_CLAIM);
             }
         }
 
@@ -1113,57 +1137,47 @@ public ClaimResult checkArea(boolean resize) {
         }
 
         final GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(this.world.getUID());
-        final Set<Long> chunkHashes = this.getChunkHashes(true);
-
-        // Since there is no parent we need to check all claims stored in chunk hashes
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk == null || claimsInChunk.size() == 0) {
+        // Bounds may have changed so rebuild chunk hashes on next access
+        this.chunkHashes = null;
+
+        // Since there is no parent we need to check all top level claims within area
+        // Each claim is only returned once by the spatial index
+        final List<GDClaim> nearbyClaims = claimWorldManager.getClaimsInArea(this.lesserBoundaryCorner.getX(), this.lesserBoundaryCorner.getZ(),
+                this.greaterBoundaryCorner.getX(), this.greaterBoundaryCorner.getZ());
+        for (GDClaim gpChunkClaim : nearbyClaims) {
+            if (gpChunkClaim.equals(this)) {
+                continue;
+            }
+            if (this.isAdminClaim() && gpChunkClaim.isAdminClaim() && gpChunkClaim.parent != null && gpChunkClaim.parent.equals(this)) {
                 continue;
             }
-            for (Claim chunkClaim : claimsInChunk) {
-                final GDClaim gpChunkClaim = (GDClaim) chunkClaim;
-                if (gpChunkClaim.equals(this) || claimsInArea.contains(gpChunkClaim)) {
-                    continue;
-                }
-                if (this.isAdminClaim() && gpChunkClaim.isAdminClaim() && gpChunkClaim.parent != null && gpChunkClaim.parent.equals(this)) {
-                    continue;
-                }
 
-                // validate this claim exists
-                boolean claimExists = false;
-                for (Claim claim : this.worldClaimManager.getWorldClaims()) {
-                    if (claim.getUniqueId().equals(chunkClaim.getUniqueId())) {
-                        claimExists = true;
-                        break;
+            // validate this claim exists
+            if (!claimWorldManager.getWorldClaims().contains(gpChunkClaim)) {
+                //GriefDefenderPlugin.getInstance().getLogger().warning("Detected Ghost chunk claim with the following data [UUID:  " + gpChunkClaim.getUniqueId() + ", Owner: " + gpChunkClaim.getOwnerName() + ", Type: " + gpChunkClaim.getType().getName() + "]. Ignoring...");
+                continue;
+            }
+            // First check if new claim is crossing another
+            if (this.isBandingAcross(gpChunkClaim) || gpChunkClaim.isBandingAcross(this)) {
+                return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
+            }
+            if (gpChunkClaim.isInside(this)) {
+                 if (!this.isAdminClaim()) {
+                    if (this.type.equals(gpChunkClaim.type) || gpChunkClaim.isAdminClaim()) {
+                        return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
                     }
                 }
-                if (!claimExists) {
-                    //GriefDefenderPlugin.getInstance().getLogger().warning("Detected Ghost chunk claim with the following data [UUID:  " + chunkClaim.getUniqueId() + ", Owner: " + chunkClaim.getOwnerName() + ", Type: " + chunkClaim.getType().getName() + "]. Ignoring...");
-                    continue;
-                }
-                // First check if new claim is crossing another
-                if (this.isBandingAcross(gpChunkClaim) || gpChunkClaim.isBandingAcross(this)) {
+                if (!this.canEnclose(gpChunkClaim)) {
                     return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
                 }
-                if (gpChunkClaim.isInside(this)) {
-                     if (!this.isAdminClaim()) {
-                        if (this.type.equals(gpChunkClaim.type) || gpChunkClaim.isAdminClaim()) {
-                            return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
-                        }
-                    }
-                    if (!this.canEnclose(gpChunkClaim)) {
-                        return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
-                    }
-                    if (!this.isSubdivision()) {
-                        claimsInArea.add(gpChunkClaim);
-                    }
-                } else if (this.isInside(gpChunkClaim)) {
-                    // Fix WorldEdit issue
-                    // Make sure to check if chunk claim can enclose newly created claim
-                    if (!gpChunkClaim.canEnclose(this)) {
-                        return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
-                    }
+                if (!this.isSubdivision()) {
+                    claimsInArea.add(gpChunkClaim);
+                }
+            } else if (this.isInside(gpChunkClaim)) {
+                // Fix WorldEdit issue
+                // Make sure to check if chunk claim can enclose newly created claim
+                if (!gpChunkClaim.canEnclose(this)) {
+                    return new GDClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
                 }
             }
         }
@@ -1218,6 +1232,7 @@ public ClaimResult checkAreaParent(List<Claim> claimsInArea, boolean resize) {
                     } else {
                         childClaim.parent = null;
                         this.children.remove(childClaim);
+                        childClaim.invalidateInheritedData();
                         final GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(this.world.getUID());
                         claimWorldManager.addClaim(childClaim, true);
                     }
@@ -1366,10 +1381,6 @@ public ClaimResult resize(int x1, int x2, int y1, int y2, int z1, int z2) {
         this.lesserBoundaryCorner = newLesserCorner;
         this.greaterBoundaryCorner = newGreaterCorner;
 
-        // checkArea refreshes the current chunk hashes so it is important
-        // to make a copy before making the call
-        final Set<Long> currentChunkHashes = new HashSet<>(this.chunkHashes);
-
         final ClaimResult result = this.checkArea(true);
         if (!result.successful()) {
             this.lesserBoundaryCorner = currentLesserCorner;
@@ -1446,26 +1457,11 @@ public ClaimResult resize(int x1, int x2, int y1, int y2, int z1, int z2) {
         this.greaterBoundaryCorner = newGreaterCorner;
         GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(this.world.getUID());
 
-        // resize validated, remove invalid chunkHashes
+        // resize validated, update claim indexes
         if (this.parent == null) {
-            for (Long chunkHash : currentChunkHashes) {
-                Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-                if (claimsInChunk != null && claimsInChunk.size() > 0) {
-                    claimsInChunk.remove(this);
-                }
-            }
-
-            final Set<Long> newChunkHashes = this.getChunkHashes(true);
-            // add new chunk hashes
-            for (Long chunkHash : newChunkHashes) {
-                Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-                if (claimsInChunk == null) {
-                    claimsInChunk = new HashSet<>();
-                    claimWorldManager.getInternalChunksToClaimsMap().put(chunkHash, claimsInChunk);
-                }
-
-                claimsInChunk.add(this);
-            }
+            claimWorldManager.updateChunkHashes(this);
+        } else {
+            claimWorldManager.incrementIndexGeneration();
         }
 
         this.claimData.setLesserBoundaryCorner(BlockUtil.getInstance().posToString(this.lesserBoundaryCorner));
@@ -1789,6 +1785,12 @@ public List<Claim> getParents(boolean recursive) {
     }
 
     public List<Claim> getInheritedParents() {
+        List<Claim> inheritedParents = this.inheritedParents;
+        if (inheritedParents != null) {
+            return inheritedParents;
+        }
+
+        final int generation = this.inheritedParentsGeneration.get();
         List<Claim> parents = new ArrayList<>();
         GDClaim currentClaim = this;
         while (currentClaim.parent != null && (currentClaim.getData() == null || currentClaim.getData().doesInheritParent())) {
@@ -1804,7 +1806,26 @@ public List<Claim> getInheritedParents() {
 
         // Index 0 is highest parent while last index represents direct
         Collections.reverse(parents);
-        return ImmutableList.copyOf(parents);
+        inheritedParents = ImmutableList.copyOf(parents);
+        // Don't store a chain resolved while the hierarchy changed
+        if (generation == this.inheritedParentsGeneration.get()) {
+            this.inheritedParents = inheritedParents;
+        }
+        return inheritedParents;
+    }
+
+    /**
+     * Drops the cached inherited parent chain of this claim and its children.
+     * 
+     * <p>Note: This must be called whenever the parent, type or inherit
+     * setting of the claim changes.</p>
+     */
+    public void invalidateInheritedParents() {
+        this.inheritedParentsGeneration.incrementAndGet();
+        this.inheritedParents = null;
+        for (Claim child : this.children) {
+            ((GDClaim) child).invalidateInheritedParents();
+        }
     }
 
     @Override
@@ -1897,6 +1918,7 @@ public ClaimResult changeType(ClaimType type, Optional<UUID> ownerUniqueId, Comm
                 this.setClaimStorage(new ClaimStorageData(newPath, this.getWorldUniqueId(), (ClaimDataConfig) this.getInternalClaimData()));
             }
             this.claimData = this.claimStorage.getConfig();
+            ((ClaimDataConfig) this.claimData).setClaim(this);
             this.getClaimStorage().save();
         } catch (IOException e) {
             e.printStackTrace();
@@ -1938,6 +1960,9 @@ public ClaimResult changeType(ClaimType type, Optional<UUID> ownerUniqueId, Comm
             this.setOwnerUniqueId(newOwnerUUID);
         }
         this.setType(type);
+        claimWorldManager.updateOwnerIndex(this);
+        FlagDecisionCache.getInstance().invalidate(this);
+        OptionValueCache.getInstance().invalidate(this);
         this.claimVisual = null;
         this.getInternalClaimData().setRequiresSave(true);
         this.getClaimStorage().save();
@@ -2133,48 +2158,39 @@ public boolean isUserTrusted(GDPermissionUser user, TrustType type, Set<Context>
         if (this.isPublicTrusted(type)) {
             return true;
         }
-
-        if (type == TrustTypes.ACCESSOR) {
-            if (this.claimData.getAccessors().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getContainers().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustTypes.BUILDER) {
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustTypes.CONTAINER) {
-            if (this.claimData.getContainers().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustTypes.MANAGER) {
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
+        if (this.claimData.getUserTrustRank(user.getUniqueId()) >= ClaimDataConfig.getTrustRank(type)) {
+            return true;
         }
 
         if (contexts == null) {
-            contexts = new HashSet<>();
+            return this.isInheritedTrusted(user, type);
+        }
+        return this.checkInheritedTrust(user, type, contexts);
+    }
+
+    // Group and parent trust results are cached for the current tick
+    private boolean isInheritedTrusted(GDPermissionUser user, TrustType type) {
+        final int tick = NMSUtil.getInstance().getRunningServerTicks();
+        if (tick != this.inheritedTrustTick) {
+            this.inheritedTrustCache.clear();
+            this.inheritedTrustTick = tick;
+        }
+        final Map<UUID, Boolean> results = this.inheritedTrustCache.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+        Boolean trusted = results.get(user.getUniqueId());
+        if (trusted == null) {
+            final int generation = this.trustGeneration.get();
+            final Set<Context> contexts = new HashSet<>();
             contexts.add(this.getContext());
+            trusted = this.checkInheritedTrust(user, type, contexts);
+            // Drop results checked against trust that changed meanwhile
+            if (generation == this.trustGeneration.get()) {
+                results.put(user.getUniqueId(), trusted);
+            }
         }
+        return trusted;
+    }
 
+    private boolean checkInheritedTrust(GDPermissionUser user, TrustType type, Set<Context> contexts) {
         if (PermissionUtil.getInstance().getPermissionValue(this, user, GDPermissions.getTrustPermission(type), contexts) == Tristate.TRUE) {
             return true;
         }
@@ -2188,43 +2204,7 @@ public boolean isUserTrusted(GDPermissionUser user, TrustType type, Set<Context>
     }
 
     private boolean isPublicTrusted(TrustType type) {
-        if (type == TrustTypes.ACCESSOR) {
-            if (this.claimData.getAccessors().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getContainers().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        } else if (type == TrustTypes.BUILDER) {
-            if (this.claimData.getBuilders().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        } else if (type == TrustTypes.CONTAINER) {
-            if (this.claimData.getContainers().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        } else if (type == TrustTypes.MANAGER) {
-            if (this.claimData.getManagers().contains(GriefDefenderPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        }
-
-        return false;
+        return this.claimData.getUserTrustRank(GriefDefenderPlugin.PUBLIC_UUID) >= ClaimDataConfig.getTrustRank(type);
     }
 
     @Override
@@ -2236,14 +2216,73 @@ public boolean isGroupTrusted(String name, TrustType type) {
         if (!PermissionUtil.getInstance().hasGroupSubject(name)) {
             return false;
         }
+        if (!PermissionUtil.getInstance().canCacheResults()) {
+            return this.checkGroupTrust(name, type);
+        }
 
+        final int generation = groupTrustGeneration.get();
+        if (generation != this.groupTrustCacheGeneration) {
+            this.groupTrustCache.clear();
+            this.groupTrustCacheGeneration = generation;
+        }
+        final Map<String, Boolean> results = this.groupTrustCache.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+        Boolean trusted = results.get(name);
+        if (trusted == null) {
+            trusted = this.checkGroupTrust(name, type);
+            results.put(name, trusted);
+        }
+        return trusted;
+    }
+
+    private boolean checkGroupTrust(String name, TrustType type) {
         final GDPermissionHolder holder = PermissionHolderCache.getInstance().getOrCreateHolder(name);
         Set<Context> contexts = new HashSet<>();
         contexts.add(this.getContext());
-
         return PermissionUtil.getInstance().getPermissionValue(this, holder, GDPermissions.getTrustPermission(type), contexts) == Tristate.TRUE;
     }
 
+    /**
+     * Invalidates cached flag decisions and option values of this claim and
+     * its children after the inherited parents have changed.
+     */
+    public void invalidateInheritedData() {
+        this.invalidateInheritedParents();
+        // Flag decisions of children are invalidated along with the claim
+        FlagDecisionCache.getInstance().invalidate(this);
+        this.invalidateInheritedOptions();
+    }
+
+    private void invalidateInheritedOptions() {
+        OptionValueCache.getInstance().invalidate(this);
+        for (Claim child : this.children) {
+            ((GDClaim) child).invalidateInheritedOptions();
+        }
+    }
+
+    /**
+     * Invalidates cached user trust results of this claim and its children
+     * after the user trust lists or the owner have changed.
+     */
+    public void onUserTrustChanged() {
+        this.trustGeneration.incrementAndGet();
+        this.inheritedTrustCache.clear();
+        for (Claim child : this.children) {
+            ((GDClaim) child).onUserTrustChanged();
+        }
+    }
+
+    public int getTrustGeneration() {
+        return this.trustGeneration.get();
+    }
+
+    /**
+     * Invalidates cached group trust results of all claims.
+     */
+    public static void invalidateGroupTrust() {
+        groupTrustGeneration.incrementAndGet();
+        FlagDecisionCache.getInstance().incrementGeneration();
+    }
+
     @Override
     public ClaimResult addUserTrust(UUID uuid, TrustType type) {
         GDUserTrustClaimEvent.Add event = new GDUserTrustClaimEvent.Add(this, ImmutableList.of(uuid), type);
@@ -2257,6 +2296,7 @@ public ClaimResult addUserTrust(UUID uuid, TrustType type) {
             userList.add(uuid);
         }
 
+        this.claimData.invalidateUserTrustIndex();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
@@ -2277,6 +2317,7 @@ public ClaimResult addUserTrusts(List<UUID> uuids, TrustType type) {
             }
         }
 
+        this.claimData.invalidateUserTrustIndex();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
@@ -2298,6 +2339,7 @@ public ClaimResult removeUserTrust(UUID uuid, TrustType type) {
         }
 
         this.getUserTrustList(type).remove(uuid);
+        this.claimData.invalidateUserTrustIndex();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
@@ -2328,6 +2370,7 @@ public ClaimResult removeUserTrusts(List<UUID> uuids, TrustType type) {
             }
         }
 
+        this.claimData.invalidateUserTrustIndex();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
@@ -2446,6 +2489,7 @@ public ClaimResult removeAllTrusts() {
             this.getGroupTrustList(type).clear();
         }
 
+        this.claimData.invalidateUserTrustIndex();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
@@ -2464,6 +2508,7 @@ public ClaimResult removeAllUserTrusts() {
             this.getUserTrustList(type).clear();
         }
 
+        this.claimData.invalidateUserTrustIndex();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
@@ -2492,6 +2537,7 @@ public ClaimResult removeAllTrustsFromUser(UUID userUniqueId) {
             this.getUserTrustList(type).remove(userUniqueId);
         }
 
+        this.claimData.invalidateUserTrustIndex();
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
     }
 
@@ -2503,6 +2549,15 @@ public ClaimResult removeAllTrustsFromGroup(String group) {
         return new GDClaimResult(this, ClaimResultType.SUCCESS);
     }
 
+    /**
+     * Gets the mutable user trust list of a trust type.
+     * 
+     * <p>Callers that change the list must call
+     * {@link IClaimData#invalidateUserTrustIndex()} afterwards.</p>
+     * 
+     * @param type The trust type
+     * @return The trust list
+     */
     public List<UUID> getUserTrustList(TrustType type) {
         if (type == TrustTypes.NONE) {
             return new ArrayList<>();
@@ -3037,6 +3092,8 @@ public void moveChildToParent(GDClaim parentClaim, GDClaim childClaim) {
             childClaim.parent.children.remove(childClaim);
         }
         childClaim.parent = parentClaim;
+        // Inherited parents have changed
+        childClaim.invalidateInheritedData();
         String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
         Path newPath = parentClaim.getClaimStorage().folderPath.resolve(childClaim.getType().getName().toLowerCase()).resolve(fileName);
         try {
@@ -38,19 +38,24 @@
 import com.griefdefender.api.claim.ClaimResultType;
 import com.griefdefender.api.claim.ClaimTypes;
 import com.griefdefender.api.permission.option.Options;
+import com.griefdefender.cache.LiquidFlowCache;
+import com.griefdefender.cache.FlagDecisionCache;
+import com.griefdefender.cache.OptionValueCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.configuration.ClaimDataConfig;
 import com.griefdefender.configuration.ClaimStorageData;
 import com.griefdefender.event.GDRemoveClaimEvent;
 import com.griefdefender.internal.tracking.PlayerIndexStorage;
 import com.griefdefender.internal.tracking.chunk.GDChunk;
-import com.griefdefender.internal.util.VecHelper;
 import com.griefdefender.permission.GDPermissionManager;
 import com.griefdefender.permission.GDPermissionUser;
 import com.griefdefender.storage.BaseStorage;
 import com.griefdefender.util.BlockUtil;
-import com.griefdefender.util.Direction;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import net.kyori.text.Component;
 import net.kyori.text.TextComponent;
 import net.kyori.text.serializer.plain.PlainComponentSerializer;
@@ -60,6 +65,7 @@
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -67,10 +73,11 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -89,13 +96,27 @@ public class GDClaimManager implements ClaimManager {
     private Set<Claim> worldClaims = new HashSet<>();
     // Claim UUID -> Claim
     private Map<UUID, Claim> claimUniqueIdMap = Maps.newHashMap();
-    // String -> Claim
-    private Map<Long, Set<Claim>> chunksToClaimsMap = new HashMap<>();
+    // Owner UUID -> Top level player claims
+    private Map<UUID, Set<Claim>> ownerClaimsMap = Maps.newHashMap();
+    // Claim UUID -> Owner UUID indexed in ownerClaimsMap
+    private Map<UUID, UUID> claimOwnerMap = Maps.newHashMap();
+    // Lowercase name -> Top level claims
+    private Map<String, Set<Claim>> nameClaimsMap = Maps.newHashMap();
+    // Claim UUID -> Lowercase name indexed in nameClaimsMap
+    private Map<UUID, String> claimNameMap = Maps.newHashMap();
+    // Chunk/Region -> Claims
+    private ClaimChunkIndex chunkIndex = new ClaimChunkIndex();
+    // Spatial index of top level claims
+    private ClaimSpatialIndex claimIndex = new ClaimSpatialIndex();
+    // Incremented whenever a claim is added, removed or resized
+    private int indexGeneration = 0;
     // Entity Index
     public PlayerIndexStorage playerIndexStorage;
-    private Map<Long, GDChunk> chunksToGDChunks = new HashMap<>();
+    private Long2ObjectOpenHashMap<GDChunk> chunksToGDChunks = new Long2ObjectOpenHashMap<>();
 
     private GDClaim theWildernessClaim;
+    // Liquid flow results of claims in this world
+    private final LiquidFlowCache liquidFlowCache = new LiquidFlowCache(this);
 
     public GDClaimManager(World world) {
         this.worldUniqueId = world.getUID();
@@ -129,43 +150,104 @@ private Set<Claim> createPlayerClaimList(UUID playerUniqueId) {
         if (BaseStorage.USE_GLOBAL_PLAYER_STORAGE) {
             for (World world : Bukkit.getServer().getWorlds()) {
                 GDClaimManager claimmanager = DATASTORE.getClaimWorldManager(world.getUID());
-                for (Claim claim : claimmanager.worldClaims) {
-                    GDClaim gdClaim = (GDClaim) claim;
-                    if (gdClaim.isAdminClaim()) {
-                        continue;
-                    }
-                    if (gdClaim.parent != null) {
-                       if (gdClaim.parent.getOwnerUniqueId().equals(playerUniqueId)) {
-                           claimList.add(claim);
-                       }
-                    } else {
-                        if (gdClaim.getOwnerUniqueId().equals(playerUniqueId)) {
-                            claimList.add(claim);
-                        }
-                    }
+                final Set<Claim> ownerClaims = claimmanager.ownerClaimsMap.get(playerUniqueId);
+                if (ownerClaims != null) {
+                    claimList.addAll(ownerClaims);
                 }
             }
         } else {
-            for (Claim claim : this.worldClaims) {
-                GDClaim gdClaim = (GDClaim) claim;
-                if (gdClaim.isAdminClaim()) {
-                    continue;
-                }
-                if (gdClaim.parent != null) {
-                   if (gdClaim.parent.getOwnerUniqueId().equals(playerUniqueId)) {
-                       claimList.add(claim);
-                   }
-                } else {
-                    if (gdClaim.getOwnerUniqueId().equals(playerUniqueId)) {
-                        claimList.add(claim);
-                    }
-                }
+            final Set<Claim> ownerClaims = this.ownerClaimsMap.get(playerUniqueId);
+            if (ownerClaims != null) {
+                claimList.addAll(ownerClaims);
             }
         }
 
         return claimList;
     }
 
+    /**
+     * Updates the owner index of a claim.
+     * 
+     * <p>Note: This should be called whenever the owner or type of
+     * a claim changes.</p>
+     * 
+     * @param claim The claim
+     */
+    public void updateOwnerIndex(GDClaim claim) {
+        this.removeOwnerIndex(claim);
+        // Only top level player claims are tracked
+        if (claim.parent != null || claim.isAdminClaim() || claim.isWilderness() || !this.worldClaims.contains(claim)) {
+            return;
+        }
+
+        final UUID ownerUniqueId = claim.getOwnerUniqueId();
+        Set<Claim> ownerClaims = this.ownerClaimsMap.get(ownerUniqueId);
+        if (ownerClaims == null) {
+            ownerClaims = new HashSet<>();
+            this.ownerClaimsMap.put(ownerUniqueId, ownerClaims);
+        }
+        ownerClaims.add(claim);
+        this.claimOwnerMap.put(claim.getUniqueId(), ownerUniqueId);
+    }
+
+    /**
+     * Updates the name index of a claim.
+     * 
+     * <p>Note: This should be called whenever the name of a claim changes.</p>
+     * 
+     * @param claim The claim
+     */
+    public void updateNameIndex(GDClaim claim) {
+        this.removeNameIndex(claim);
+        if (claim.parent != null || claim.isWilderness() || !this.worldClaims.contains(claim)) {
+            return;
+        }
+
+        final Component claimName = claim.getName().orElse(null);
+        if (claimName == null || claimName == TextComponent.empty()) {
+            return;
+        }
+
+        final String name = PlainComponentSerializer.INSTANCE.serialize(claimName).toLowerCase(Locale.ROOT);
+        Set<Claim> nameClaims = this.nameClaimsMap.get(name);
+        if (nameClaims == null) {
+            nameClaims = new HashSet<>();
+            this.nameClaimsMap.put(name, nameClaims);
+        }
+        nameClaims.add(claim);
+        this.claimNameMap.put(claim.getUniqueId(), name);
+    }
+
+    private void removeNameIndex(GDClaim claim) {
+        final String name = this.claimNameMap.remove(claim.getUniqueId());
+        if (name == null) {
+            return;
+        }
+
+        final Set<Claim> nameClaims = this.nameClaimsMap.get(name);
+        if (nameClaims != null) {
+            nameClaims.remove(claim);
+            if (nameClaims.isEmpty()) {
+                this.nameClaimsMap.remove(name);
+            }
+        }
+    }
+
+    private void removeOwnerIndex(GDClaim claim) {
+        final UUID ownerUniqueId = this.claimOwnerMap.remove(claim.getUniqueId());
+        if (ownerUniqueId == null) {
+            return;
+        }
+
+        final Set<Claim> ownerClaims = this.ownerClaimsMap.get(ownerUniqueId);
+        if (ownerClaims != null) {
+            ownerClaims.remove(claim);
+            if (ownerClaims.isEmpty()) {
+                this.ownerClaimsMap.remove(ownerUniqueId);
+            }
+        }
+    }
+
     public void removePlayer(UUID playerUniqueId) {
         this.getPlayerDataMap().remove(playerUniqueId);
     }
@@ -213,6 +295,8 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
         if (claim.parent != null) {
             claim.parent.children.add(claim);
             this.worldClaims.remove(claim);
+            this.removeOwnerIndex(claim);
+            this.removeNameIndex(claim);
             this.deleteChunkHashes((GDClaim) claim);
             if (!claim.isAdminClaim() && (!claim.isInTown() || !claim.getTownClaim().getOwnerUniqueId().equals(claim.getOwnerUniqueId()))) {
                 final GDPlayerData playerData = this.getPlayerDataMap().get(claim.getOwnerUniqueId());
@@ -229,6 +313,8 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
         if (!this.worldClaims.contains(claim)) {
             this.worldClaims.add(claim);
         }
+        this.updateOwnerIndex(claim);
+        this.updateNameIndex(claim);
         final UUID ownerId = claim.getOwnerUniqueId();
         final GDPlayerData playerData = this.getPlayerDataMap().get(ownerId);
         if (playerData != null) {
@@ -245,22 +331,51 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
     }
 
     public void updateChunkHashes(GDClaim claim) {
-        this.deleteChunkHashes(claim);
-        Set<Long> chunkHashes = claim.getChunkHashes(true);
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = this.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk == null) {
-                claimsInChunk = new HashSet<Claim>();
-                this.getInternalChunksToClaimsMap().put(chunkHash, claimsInChunk);
+        // Both indexes replace any entry stored with previous bounds
+        this.chunkIndex.add(claim);
+        this.claimIndex.insert(claim);
+        this.updateLoadedChunkHashes(claim);
+        this.indexGeneration++;
+    }
+
+    private void updateLoadedChunkHashes(GDClaim claim) {
+        final int minChunkX = claim.lesserBoundaryCorner.getX() >> 4;
+        final int minChunkZ = claim.lesserBoundaryCorner.getZ() >> 4;
+        final int maxChunkX = claim.greaterBoundaryCorner.getX() >> 4;
+        final int maxChunkZ = claim.greaterBoundaryCorner.getZ() >> 4;
+        final long chunkArea = ((long) maxChunkX - minChunkX + 1) * ((long) maxChunkZ - minChunkZ + 1);
+        claim.loadedChunkHashes.clear();
+        if (chunkArea > this.chunksToGDChunks.size()) {
+            // Claim is larger than the loaded area so only check loaded chunks
+            final LongIterator iterator = this.chunksToGDChunks.keySet().iterator();
+            while (iterator.hasNext()) {
+                final long chunkKey = iterator.nextLong();
+                final int chunkX = (int) chunkKey;
+                final int chunkZ = (int) (chunkKey >>> 32);
+                if (chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ) {
+                    claim.loadedChunkHashes.add(chunkKey);
+                    this.getWildernessClaim().loadedChunkHashes.remove(chunkKey);
+                }
             }
+            return;
+        }
 
-            claimsInChunk.add(claim);
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                final long chunkKey = getChunkKey(chunkX, chunkZ);
+                if (this.chunksToGDChunks.containsKey(chunkKey)) {
+                    claim.loadedChunkHashes.add(chunkKey);
+                    this.getWildernessClaim().loadedChunkHashes.remove(chunkKey);
+                }
+            }
         }
     }
 
     // Used when parent claims becomes children
     public void removeClaimData(Claim claim) {
         this.worldClaims.remove(claim);
+        this.removeOwnerIndex((GDClaim) claim);
+        this.removeNameIndex((GDClaim) claim);
         this.deleteChunkHashes((GDClaim) claim);
     }
 
@@ -311,6 +426,10 @@ public ClaimResult deleteClaimInternal(Claim claim, boolean deleteChildren) {
         }
         this.worldClaims.remove(claim);
         this.claimUniqueIdMap.remove(claim.getUniqueId());
+        this.removeOwnerIndex(gdClaim);
+        this.removeNameIndex(gdClaim);
+        FlagDecisionCache.getInstance().remove(claim);
+        OptionValueCache.getInstance().invalidate(claim);
         this.deleteChunkHashes((GDClaim) claim);
         if (gdClaim.parent != null) {
             gdClaim.parent.children.remove(claim);
@@ -328,6 +447,8 @@ public ClaimResult deleteClaimInternal(Claim claim, boolean deleteChildren) {
     // Migrates children to new parent
     private void migrateChildToNewParent(GDClaim parentClaim, GDClaim childClaim) {
         childClaim.parent = parentClaim;
+        // Inherited parents have changed
+        childClaim.invalidateInheritedData();
         String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
         Path newPath = null;
         if (parentClaim == null) {
@@ -386,20 +507,22 @@ private void resetPlayerClaimVisuals(Claim claim) {
     }
 
     private void deleteChunkHashes(GDClaim claim) {
-        Set<Long> chunkHashes = claim.getChunkHashes(true);
-        if (chunkHashes == null) {
-            return;
-        }
+        this.claimIndex.remove(claim);
+        this.chunkIndex.remove(claim);
+        this.indexGeneration++;
+    }
 
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = this.chunksToClaimsMap.get(chunkHash);
-            if (claimsInChunk != null) {
-                claimsInChunk.remove(claim);
-                if (claimsInChunk.isEmpty()) {
-                    this.chunksToClaimsMap.remove(chunkHash);
-                }
-            }
-        }
+    public int getIndexGeneration() {
+        return this.indexGeneration;
+    }
+
+    // Used when a child claim changes without affecting the claim indexes
+    public void incrementIndexGeneration() {
+        this.indexGeneration++;
+    }
+
+    public LiquidFlowCache getLiquidFlowCache() {
+        return this.liquidFlowCache;
     }
 
     @Nullable
@@ -459,28 +582,102 @@ public Map<UUID, GDPlayerData> getPlayerDataMap() {
     }
 
     public Set<Claim> findOverlappingClaims(Claim claim) {
+        final GDClaim gdClaim = (GDClaim) claim;
+        final List<GDClaim> candidates = this.getClaimsInArea(gdClaim.lesserBoundaryCorner.getX(), gdClaim.lesserBoundaryCorner.getZ(),
+                gdClaim.greaterBoundaryCorner.getX(), gdClaim.greaterBoundaryCorner.getZ());
         Set<Claim> claimSet = new HashSet<>();
-        for (Long chunkHash : claim.getChunkHashes()) {
-            final Set<Claim> chunkClaims = this.chunksToClaimsMap.get(chunkHash);
-            if (chunkClaims == null) {
-                continue;
-            }
-            for (Claim chunkClaim : chunkClaims) {
-                if (!chunkClaim.equals(claim) && (claim.overlaps(chunkClaim) || chunkClaim.overlaps(claim))) {
-                    claimSet.add(chunkClaim);
-                }
+        for (Claim candidate : candidates) {
+            if (!candidate.equals(claim) && (claim.overlaps(candidate) || candidate.overlaps(claim))) {
+                claimSet.add(candidate);
             }
         }
         return claimSet;
     }
 
+    /**
+     * Gets all top level claims whose bounds intersect the area.
+     * 
+     * @return The claims, each claim is only returned once
+     */
+    public List<GDClaim> getClaimsInArea(int minX, int minZ, int maxX, int maxZ) {
+        final List<GDClaim> claims = new ArrayList<>();
+        this.claimIndex.query(minX, minZ, maxX, maxZ, claims);
+        return claims;
+    }
+
     @Override
     public Map<Long, Set<Claim>> getChunksToClaimsMap() {
-        return Collections.unmodifiableMap(this.chunksToClaimsMap);
+        return this.chunkIndex.asMap();
+    }
+
+    public boolean hasChunkClaims(int chunkX, int chunkZ) {
+        return this.chunkIndex.hasClaims(chunkX, chunkZ);
+    }
+
+    /**
+     * Resolves the claims of a batch of blocks.
+     * 
+     * <p>Blocks are grouped by chunk so each chunk bucket is only looked up
+     * once regardless of how many blocks fall within it.</p>
+     * 
+     * @param blocks The blocks to resolve
+     * @return A map of claim to its blocks, in encounter order
+     */
+    public Map<GDClaim, List<Block>> resolveClaims(Collection<Block> blocks) {
+        final Map<GDClaim, List<Block>> claimBlocks = new LinkedHashMap<>();
+        if (blocks.isEmpty()) {
+            return claimBlocks;
+        }
+
+        final Long2ObjectLinkedOpenHashMap<List<Block>> chunkBlocks = new Long2ObjectLinkedOpenHashMap<>();
+        for (Block block : blocks) {
+            final long chunkKey = BlockUtil.getInstance().asLong(block.getX() >> 4, block.getZ() >> 4);
+            List<Block> blockList = chunkBlocks.get(chunkKey);
+            if (blockList == null) {
+                blockList = new ArrayList<>();
+                chunkBlocks.put(chunkKey, blockList);
+            }
+            blockList.add(block);
+        }
+
+        final GDClaim wildernessClaim = this.getWildernessClaim();
+        for (Long2ObjectMap.Entry<List<Block>> mapEntry : chunkBlocks.long2ObjectEntrySet()) {
+            final long chunkKey = mapEntry.getLongKey();
+            final int chunkX = (int) chunkKey;
+            final int chunkZ = (int) (chunkKey >>> 32);
+            final Claim[] regionClaims = this.chunkIndex.getRegionBucket(chunkX, chunkZ);
+            final Claim[] chunkClaims = this.chunkIndex.getChunkBucket(chunkX, chunkZ);
+            final boolean noClaims = regionClaims.length == 0 && chunkClaims.length == 0;
+            for (Block block : mapEntry.getValue()) {
+                GDClaim foundClaim = null;
+                if (!noClaims) {
+                    foundClaim = findClaim(regionClaims, block.getX(), block.getY(), block.getZ());
+                    if (foundClaim == null) {
+                        foundClaim = findClaim(chunkClaims, block.getX(), block.getY(), block.getZ());
+                    }
+                }
+                if (foundClaim == null) {
+                    foundClaim = wildernessClaim;
+                }
+                List<Block> blockList = claimBlocks.get(foundClaim);
+                if (blockList == null) {
+                    blockList = new ArrayList<>();
+                    claimBlocks.put(foundClaim, blockList);
+                }
+                blockList.add(block);
+            }
+        }
+        return claimBlocks;
     }
 
-    public Map<Long, Set<Claim>> getInternalChunksToClaimsMap() {
-        return this.chunksToClaimsMap;
+    private static GDClaim findClaim(Claim[] claims, int x, int y, int z) {
+        for (Claim claim : claims) {
+            final GDClaim foundClaim = ClaimSpatialIndex.findClaim((GDClaim) claim, x, y, z, null, false);
+            if (foundClaim != null) {
+                return foundClaim;
+            }
+        }
+        return null;
     }
 
     public void save() {
@@ -506,7 +703,13 @@ public void unload() {
         this.playerDataList.clear();
         this.worldClaims.clear();
         this.claimUniqueIdMap.clear();
-        this.chunksToClaimsMap.clear();
+        this.ownerClaimsMap.clear();
+        this.claimOwnerMap.clear();
+        this.nameClaimsMap.clear();
+        this.claimNameMap.clear();
+        this.chunkIndex.clear();
+        this.claimIndex.clear();
+        this.indexGeneration++;
         if (this.theWildernessClaim != null) {
             this.theWildernessClaim.unload();
             this.theWildernessClaim = null;
@@ -515,15 +718,15 @@ public void unload() {
     }
 
     public Claim getClaimAt(Location location, boolean useBorderBlockRadius) {
-        return this.getClaimAt(VecHelper.toVector3i(location), null, useBorderBlockRadius);
+        return this.getClaimAt(location.getBlockX(), location.getBlockY(), location.getBlockZ(), null, useBorderBlockRadius);
     }
 
     public Claim getClaimAtPlayer(Location location, GDPlayerData playerData) {
-        return this.getClaimAt(VecHelper.toVector3i(location), playerData, false);
+        return this.getClaimAt(location.getBlockX(), location.getBlockY(), location.getBlockZ(), playerData, false);
     }
 
     public Claim getClaimAtPlayer(Location location, GDPlayerData playerData, boolean useBorderBlockRadius) {
-        return this.getClaimAt(VecHelper.toVector3i(location), playerData, useBorderBlockRadius);
+        return this.getClaimAt(location.getBlockX(), location.getBlockY(), location.getBlockZ(), playerData, useBorderBlockRadius);
     }
 
     @Override
@@ -533,82 +736,59 @@ public Claim getClaimAt(Vector3i pos) {
 
     @Override
     public Claim getClaimAt(int x, int y, int z) {
-        return this.getClaimAt(new Vector3i(x, y, z), null, false);
+        return this.getClaimAt(x, y, z, null, false);
     }
 
     public Claim getClaimAt(Vector3i pos, GDPlayerData playerData, boolean useBorderBlockRadius) {
-        Set<Claim> claimsInChunk = this.getInternalChunksToClaimsMap().get(BlockUtil.getInstance().asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        return this.getClaimAt(pos.getX(), pos.getY(), pos.getZ(), playerData, useBorderBlockRadius);
+    }
+
+    public Claim getClaimAt(int x, int y, int z, GDPlayerData playerData, boolean useBorderBlockRadius) {
         if (useBorderBlockRadius && (playerData != null && !playerData.bypassBorderCheck)) {
             final int borderBlockRadius = GriefDefenderPlugin.getActiveConfig(this.worldUniqueId).getConfig().claim.borderBlockRadius;
-            // if borderBlockRadius > 0, check surrounding chunks
+            // if borderBlockRadius > 0, check surrounding claims
             if (borderBlockRadius > 0) {
-                for (Direction direction : BlockUtil.ORDINAL_SET) {
-                    Vector3i currentPos = pos;
-                    for (int i = 0; i < borderBlockRadius; i++) { // Handle depth
-                        currentPos = BlockUtil.getInstance().getBlockRelative(currentPos, direction); 
-                        Set<Claim> relativeClaims = this.getInternalChunksToClaimsMap().get(BlockUtil.getInstance().asLong(currentPos.getX() >> 4, currentPos.getZ() >> 4));
-                        if (relativeClaims != null) {
-                            if (claimsInChunk == null) {
-                                claimsInChunk = new HashSet<>();
-                            }
-                            claimsInChunk.addAll(relativeClaims);
-                        }
-                    }
-                }
+                final GDClaim foundClaim = this.claimIndex.getClaimAt(x, y, z, borderBlockRadius, playerData);
+                return foundClaim == null ? this.getWildernessClaim() : foundClaim;
             }
         }
-        if (claimsInChunk == null) {
-            return this.getWildernessClaim();
-        }
 
-        for (Claim claim : claimsInChunk) {
-            GDClaim foundClaim = findClaim((GDClaim) claim, pos, playerData, useBorderBlockRadius);
-            if (foundClaim != null) {
-                return foundClaim;
+        if (playerData != null && !useBorderBlockRadius) {
+            final GDClaim cachedClaim = playerData.getCachedClaimAt(this, this.indexGeneration, x, y, z);
+            if (cachedClaim != null) {
+                return cachedClaim;
             }
         }
 
-        // if no claim found, return the world claim
-        return this.getWildernessClaim();
-    }
-
-    private GDClaim findClaim(GDClaim claim, Vector3i pos, GDPlayerData playerData, boolean useBorderBlockRadius) {
-        if (claim.contains(pos, playerData, useBorderBlockRadius)) {
-            // when we find a top level claim, if the location is in one of its children,
-            // return the child claim, not the top level claim
-            for (Claim childClaim : claim.children) {
-                GDClaim child = (GDClaim) childClaim;
-                if (!child.children.isEmpty()) {
-                    GDClaim innerChild = findClaim(child, pos, playerData, useBorderBlockRadius);
-                    if (innerChild != null) {
-                        return innerChild;
-                    }
-                }
-                // check if child has children (Town -> Basic -> Subdivision)
-                if (child.contains(pos, playerData, useBorderBlockRadius)) {
-                    return child;
-                }
-            }
-            return claim;
+        GDClaim foundClaim = this.claimIndex.getClaimAt(x, y, z, playerData, useBorderBlockRadius);
+        if (foundClaim == null) {
+            // if no claim found, return the world claim
+            foundClaim = this.getWildernessClaim();
         }
-        return null;
+        if (playerData != null && !useBorderBlockRadius) {
+            playerData.setCachedClaimAt(this, this.indexGeneration, foundClaim, x, y, z);
+        }
+        return foundClaim;
     }
 
     @Override
     public List<Claim> getClaimsByName(String name) {
         List<Claim> claimList = new ArrayList<>();
-        for (Claim worldClaim : this.getWorldClaims()) {
-            Component claimName = worldClaim.getName().orElse(null);
-            if (claimName != null && claimName != TextComponent.empty()) {
-                if (PlainComponentSerializer.INSTANCE.serialize(claimName).equalsIgnoreCase(name)) {
-                    claimList.add(worldClaim);
-                }
-            }
-            // check children
-            for (Claim child : ((GDClaim) worldClaim).getChildren(true)) {
-                if (child.getUniqueId().toString().equals(name)) {
-                    claimList.add(child);
-                }
+        final Set<Claim> nameClaims = this.nameClaimsMap.get(name.toLowerCase(Locale.ROOT));
+        if (nameClaims != null) {
+            claimList.addAll(nameClaims);
+        }
+        // check children
+        UUID claimUniqueId = null;
+        try {
+            claimUniqueId = UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            // not a uuid
+        }
+        if (claimUniqueId != null) {
+            final GDClaim child = (GDClaim) this.claimUniqueIdMap.get(claimUniqueId);
+            if (child != null && child.parent != null) {
+                claimList.add(child);
             }
         }
         return claimList;
@@ -672,7 +852,7 @@ public GDChunk getChunk(Chunk chunk, boolean force) {
         if (gdChunk == null && force) {
             gdChunk = new GDChunk(chunk);
             this.chunksToGDChunks.put(chunkKey, gdChunk);
-            if (this.chunksToClaimsMap.get(chunkKey) == null) {
+            if (!this.chunkIndex.hasClaims(chunk.getX(), chunk.getZ())) {
                 this.getWildernessClaim().loadedChunkHashes.add(chunkKey);
             }
         }
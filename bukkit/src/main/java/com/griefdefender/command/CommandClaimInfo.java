@@ -146,23 +146,24 @@ public void execute(CommandSender src, String[] args) {
                 return;
             }
         } else {
+            UUID uuid = null;
+            try {
+                uuid = UUID.fromString(claimIdentifier);
+            } catch (IllegalArgumentException e) {
+                
+            }
             for (World world : Bukkit.getServer().getWorlds()) {
                 if (!GriefDefenderPlugin.getInstance().claimsEnabledForWorld(world.getUID())) {
                     continue;
                 }
 
                 final GDClaimManager claimManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(world.getUID());
-                UUID uuid = null;
-                try {
-                    uuid = UUID.fromString(claimIdentifier);
+                if (uuid != null) {
                     claim = claimManager.getClaimByUUID(uuid).orElse(null);
                     if (claim != null) {
                         break;
                     }
-                } catch (IllegalArgumentException e) {
-                    
-                }
-                if (uuid == null) {
+                } else {
                     final List<Claim> claimList = claimManager.getClaimsByName(claimIdentifier);
                     if (!claimList.isEmpty()) {
                         claim = claimList.get(0);
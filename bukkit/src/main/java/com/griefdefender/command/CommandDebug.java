@@ -35,11 +35,13 @@
 import com.google.common.collect.ImmutableMap;
 import com.griefdefender.GDDebugData;
 import com.griefdefender.GriefDefenderPlugin;
+import com.griefdefender.cache.BlockPhysicsCache;
 import com.griefdefender.cache.MessageCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.configuration.MessageStorage;
 import com.griefdefender.permission.GDPermissionUser;
 import com.griefdefender.permission.GDPermissions;
+import net.kyori.text.Component;
 import net.kyori.text.TextComponent;
 import net.kyori.text.adapter.bukkit.TextAdapter;
 import net.kyori.text.format.TextColor;
@@ -57,12 +59,27 @@ public class CommandDebug extends BaseCommand {
 
     @CommandAlias("gddebug")
     @Description("%debug")
-    @Syntax("<record|paste|on|off> [filter]")
+    @Syntax("<record|paste|physics|on|off> [filter]")
     @Subcommand("debug")
     public void execute(CommandSender src, String command, @Optional String filter) {
         GDDebugData debugData = null;
         boolean paste = false;
         boolean verbose = false;
+        if (command.equalsIgnoreCase("physics")) {
+            final BlockPhysicsCache physicsCache = BlockPhysicsCache.getInstance();
+            final Component message = MessageStorage.MESSAGE_DATA.getMessage(MessageStorage.DEBUG_PHYSICS_STATS,
+                    ImmutableMap.of(
+                    "tick", physicsCache.getLastTick(),
+                    "events", physicsCache.getLastEvents(),
+                    "skipped", physicsCache.getLastSkipped(),
+                    "deduplicated", physicsCache.getLastDeduplicated(),
+                    "checked", physicsCache.getLastChecked()));
+            TextAdapter.sendComponent(src, TextComponent.builder("")
+                    .append(GriefDefenderPlugin.GD_TEXT)
+                    .append(message)
+                    .build());
+            return;
+        }
         if (command.equalsIgnoreCase("on")) {
             verbose = true;
             debugData = getOrCreateDebugUser(src, filter, true);
@@ -477,6 +477,7 @@ private static Consumer<CommandSender> createCancelConsumer(Player src, GDClaim
     private static Consumer<CommandSender> createRemoveConsumer(Player src, GDClaim claim, GDPlayerData playerData, TrustType type, Component returnCommand, IClaimData data, List<UUID> trustList, UUID uuid) {
         return consumer -> {
             trustList.remove(uuid);
+            data.invalidateUserTrustIndex();
             data.setRequiresSave(true);
             data.save();
             showTrustList(src, claim, playerData, type, new ArrayList<>(), returnCommand);
@@ -161,6 +161,7 @@ public void execute(Player player, String target, @Optional String type) {
         }
 
         trustList.add(user.getUniqueId());
+        claim.getInternalClaimData().invalidateUserTrustIndex();
         claim.getInternalClaimData().setRequiresSave(true);
         claim.getInternalClaimData().save();
 
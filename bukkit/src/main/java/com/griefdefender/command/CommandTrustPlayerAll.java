@@ -136,6 +136,7 @@ private void addAllUserTrust(Claim claim, GDPermissionUser user, TrustType trust
         List<UUID> trustList = gdClaim.getUserTrustList(trustType);
         if (!trustList.contains(user.getUniqueId())) {
             trustList.add(user.getUniqueId());
+            gdClaim.getInternalClaimData().invalidateUserTrustIndex();
         }
 
         gdClaim.getInternalClaimData().setRequiresSave(true);
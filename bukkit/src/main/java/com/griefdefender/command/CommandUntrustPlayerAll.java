@@ -138,6 +138,7 @@ public void execute(Player player, String target, @Optional String type) {
     private void removeUserTrust(GDClaim claim, GDPermissionUser user, TrustType type) {
         final List<UUID> trustList = claim.getUserTrustList(type);
         if (trustList.remove(user.getUniqueId())) {
+            claim.getInternalClaimData().invalidateUserTrustIndex();
             claim.getInternalClaimData().setRequiresSave(true);
             claim.getInternalClaimData().save();
         }
@@ -25,14 +25,18 @@
 package com.griefdefender.configuration;
 
 import com.flowpowered.math.vector.Vector3i;
+import com.griefdefender.GriefDefenderPlugin;
 import com.griefdefender.api.Tristate;
 import com.griefdefender.api.claim.ClaimType;
 import com.griefdefender.api.claim.ClaimTypes;
+import com.griefdefender.api.claim.TrustType;
+import com.griefdefender.api.claim.TrustTypes;
 import com.griefdefender.api.data.EconomyData;
 import com.griefdefender.claim.GDClaim;
 import com.griefdefender.configuration.category.ConfigCategory;
 import com.griefdefender.util.BlockUtil;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.kyori.text.Component;
 import ninja.leaping.configurate.objectmapping.Setting;
 import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
@@ -46,11 +50,20 @@
 @ConfigSerializable
 public class ClaimDataConfig extends ConfigCategory implements IClaimData {
 
+    public static final int TRUST_RANK_NONE = 0;
+    public static final int TRUST_RANK_ACCESSOR = 1;
+    public static final int TRUST_RANK_CONTAINER = 2;
+    public static final int TRUST_RANK_BUILDER = 3;
+    public static final int TRUST_RANK_MANAGER = 4;
+
     private boolean requiresSave = false;
+    // User UUID -> Highest trust rank, rebuilt lazily after trust changes
+    private Object2IntOpenHashMap<UUID> userTrustIndex;
     private Vector3i lesserPos;
     private Vector3i greaterPos;
     private Vector3i spawnPos;
     private ClaimStorageData claimStorage;
+    private GDClaim claim;
 
     @Setting
     private UUID parent;
@@ -315,6 +328,9 @@ public void setDateLastActive(Instant date) {
     public void setName(Component name) {
         this.requiresSave = true;
         this.claimName = name;
+        if (this.claim != null) {
+            GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(this.claim.getWorldUniqueId()).updateNameIndex(this.claim);
+        }
     }
 
     @Override
@@ -347,24 +363,28 @@ public void setGreaterBoundaryCorner(String location) {
     public void setAccessors(List<UUID> accessors) {
         this.requiresSave = true;
         this.accessors = accessors;
+        this.invalidateUserTrustIndex();
     }
 
     @Override
     public void setBuilders(List<UUID> builders) {
         this.requiresSave = true;
         this.builders = builders;
+        this.invalidateUserTrustIndex();
     }
 
     @Override
     public void setContainers(List<UUID> containers) {
         this.requiresSave = true;
         this.containers = containers;
+        this.invalidateUserTrustIndex();
     }
 
     @Override
     public void setManagers(List<UUID> coowners) {
         this.requiresSave = true;
         this.managers = coowners;
+        this.invalidateUserTrustIndex();
     }
 
     public boolean requiresSave() {
@@ -376,6 +396,60 @@ public void setRequiresSave(boolean flag) {
         this.requiresSave = flag;
     }
 
+    @Override
+    public void invalidateUserTrustIndex() {
+        this.userTrustIndex = null;
+        if (this.claim != null) {
+            this.claim.onUserTrustChanged();
+        }
+    }
+
+    @Override
+    public int getUserTrustRank(UUID uuid) {
+        Object2IntOpenHashMap<UUID> index = this.userTrustIndex;
+        if (index == null) {
+            index = new Object2IntOpenHashMap<>();
+            index.defaultReturnValue(TRUST_RANK_NONE);
+            // Add in ascending order so the highest rank wins
+            for (UUID accessor : this.accessors) {
+                index.put(accessor, TRUST_RANK_ACCESSOR);
+            }
+            for (UUID container : this.containers) {
+                index.put(container, TRUST_RANK_CONTAINER);
+            }
+            for (UUID builder : this.builders) {
+                index.put(builder, TRUST_RANK_BUILDER);
+            }
+            for (UUID manager : this.managers) {
+                index.put(manager, TRUST_RANK_MANAGER);
+            }
+            this.userTrustIndex = index;
+        }
+        return index.getInt(uuid);
+    }
+
+    /**
+     * Gets the minimum trust rank required to satisfy a trust type.
+     * 
+     * @param type The trust type
+     * @return The rank, {@link Integer#MAX_VALUE} if no user trust satisfies the type
+     */
+    public static int getTrustRank(TrustType type) {
+        if (type == TrustTypes.ACCESSOR) {
+            return TRUST_RANK_ACCESSOR;
+        }
+        if (type == TrustTypes.CONTAINER) {
+            return TRUST_RANK_CONTAINER;
+        }
+        if (type == TrustTypes.BUILDER) {
+            return TRUST_RANK_BUILDER;
+        }
+        if (type == TrustTypes.MANAGER) {
+            return TRUST_RANK_MANAGER;
+        }
+        return Integer.MAX_VALUE;
+    }
+
     @Override
     public void setSizeRestrictions(boolean sizeRestrictions) {
         this.sizeRestrictions = sizeRestrictions;
@@ -391,6 +465,10 @@ public boolean doesInheritParent() {
     public void setInheritParent(boolean flag) {
         this.requiresSave = true;
         this.inheritParent = flag;
+        if (this.claim != null) {
+            this.claim.invalidateInheritedData();
+        }
+        GDClaim.invalidateGroupTrust();
     }
 
     @Override
@@ -409,6 +487,10 @@ public void setClaimStorageData(ClaimStorageData claimStorage) {
         this.claimStorage = claimStorage;
     }
 
+    public void setClaim(GDClaim claim) {
+        this.claim = claim;
+    }
+
     @Override
     public void save() {
         this.claimStorage.save();
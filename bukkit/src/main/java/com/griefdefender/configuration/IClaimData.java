@@ -44,6 +44,10 @@ public interface IClaimData extends ClaimData {
 
     List<UUID> getManagers();
 
+    int getUserTrustRank(UUID uuid);
+
+    void invalidateUserTrustIndex();
+
     List<String> getAccessorGroups();
 
     List<String> getBuilderGroups();
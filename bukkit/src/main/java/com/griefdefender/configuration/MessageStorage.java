@@ -217,6 +217,7 @@ public class MessageStorage {
     public static final String CREATE_OVERLAP_PLAYER = "create-overlap-player";
     public static final String CREATE_SUCCESS = "create-success";
     public static final String DEBUG_ERROR_UPLOAD = "debug-error-upload";
+    public static final String DEBUG_PHYSICS_STATS = "debug-physics-stats";
     public static final String DELETE_ALL_TYPE_DENY = "delete-all-type-deny";
     public static final String DELETE_ALL_TYPE_SUCCESS = "delete-all-type-success";
     public static final String DELETE_ALL_TYPE_SUCCESS_WORLD = "delete-all-type-success-world";
@@ -26,6 +26,7 @@
 
 import com.griefdefender.api.permission.flag.Flag;
 import com.griefdefender.registry.FlagRegistryModule;
+import com.griefdefender.util.IdMatcher;
 import ninja.leaping.configurate.objectmapping.Setting;
 import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
 
@@ -33,6 +34,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -52,6 +54,11 @@ public class BlacklistCategory extends ConfigCategory {
     @Setting(value = "entity-damage-source-blacklist", comment = "A global list of entity damage sources that are ignored in events by default.")
     public List<String> entityDamageSourceBlacklist = new ArrayList<>();
 
+    // Compiled matchers, recompiled whenever the config replaces a list
+    private IdMatcher globalSourceMatcher;
+    private IdMatcher globalTargetMatcher;
+    private final Map<String, IdMatcher> flagMatchers = new ConcurrentHashMap<>();
+
     public BlacklistCategory() {
         for (Flag flag : FlagRegistryModule.getInstance().getAll()) {
             this.flagIdBlacklist.put(flag.getName().toLowerCase(), new ArrayList<>());
@@ -86,4 +93,44 @@ public List<String> getEntityDamageSourceBlacklist() {
     public List<String> getFlagBlacklist(String flag) {
         return this.flagIdBlacklist.get(flag);
     }
+
+    @Nullable
+    public IdMatcher getGlobalSourceMatcher() {
+        if (this.globalSourceBlacklist == null) {
+            return null;
+        }
+        IdMatcher matcher = this.globalSourceMatcher;
+        if (matcher == null || matcher.getPatterns() != this.globalSourceBlacklist) {
+            matcher = IdMatcher.compile(this.globalSourceBlacklist);
+            this.globalSourceMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    @Nullable
+    public IdMatcher getGlobalTargetMatcher() {
+        if (this.globalTargetBlacklist == null) {
+            return null;
+        }
+        IdMatcher matcher = this.globalTargetMatcher;
+        if (matcher == null || matcher.getPatterns() != this.globalTargetBlacklist) {
+            matcher = IdMatcher.compile(this.globalTargetBlacklist);
+            this.globalTargetMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    @Nullable
+    public IdMatcher getFlagMatcher(String flag) {
+        final List<String> flagList = this.flagIdBlacklist.get(flag);
+        if (flagList == null) {
+            return null;
+        }
+        IdMatcher matcher = this.flagMatchers.get(flag);
+        if (matcher == null || matcher.getPatterns() != flagList) {
+            matcher = IdMatcher.compile(flagList);
+            this.flagMatchers.put(flag, matcher);
+        }
+        return matcher;
+    }
 }
@@ -40,7 +40,8 @@
 import com.griefdefender.api.economy.PaymentType;
 import com.griefdefender.api.permission.flag.Flags;
 import com.griefdefender.api.permission.option.Options;
-import com.griefdefender.cache.EventResultCache;
+import com.griefdefender.cache.BlockPhysicsCache;
+import com.griefdefender.cache.LiquidFlowCache;
 import com.griefdefender.cache.MessageCache;
 import com.griefdefender.claim.GDClaim;
 import com.griefdefender.claim.GDClaimManager;
@@ -67,7 +68,6 @@
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.World.Environment;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
@@ -97,7 +97,6 @@
 import org.bukkit.event.world.StructureGrowEvent;
 import org.bukkit.inventory.Inventory;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class BlockEventHandler implements Listener {
@@ -328,7 +327,7 @@ public void onBlockFromTo(BlockFromToEvent event) {
         }
 
         if (fromBlock.isLiquid()) {
-            final Tristate result = GDPermissionManager.getInstance().getFinalPermission(event, location, targetClaim, Flags.LIQUID_FLOW, fromBlock, toBlock, user, TrustTypes.BUILDER, true);
+            final Tristate result = this.getLiquidFlowResult(event, location, targetClaim, fromBlock, toBlock, user);
             if (result == Tristate.FALSE) {
                 event.setCancelled(true);
                 return;
@@ -338,6 +337,55 @@ public void onBlockFromTo(BlockFromToEvent event) {
         }
     }
 
+    private Tristate getLiquidFlowResult(BlockFromToEvent event, Location location, GDClaim targetClaim, Block fromBlock, Block toBlock, GDPermissionUser user) {
+        // Results are the same for every flow step until claims, flags or trust change
+        final GDPlayerData playerData = user.getInternalPlayerData();
+        final boolean cacheResults = !GriefDefenderPlugin.debugActive
+                && GriefDefenderPlugin.getInstance().getSlimefunProvider() == null
+                && (targetClaim.getEconomyData() == null || !targetClaim.getEconomyData().isRented())
+                && (playerData == null || (!playerData.ignoreClaims && !playerData.debugClaimPermissions));
+        if (!cacheResults) {
+            return GDPermissionManager.getInstance().getFinalPermission(event, location, targetClaim, Flags.LIQUID_FLOW, fromBlock, toBlock, user, TrustTypes.BUILDER, true);
+        }
+
+        final LiquidFlowCache flowCache = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(targetClaim.getWorldUniqueId()).getLiquidFlowCache();
+        final boolean sameClaim = isWithinClaim(targetClaim, fromBlock);
+        if (sameClaim) {
+            final Tristate result = flowCache.getSameClaimResult(targetClaim, user.getUniqueId(), fromBlock.getType(), toBlock.getType());
+            if (result != null) {
+                return result;
+            }
+        }
+
+        final String fromState = NMSUtil.getInstance().getBlockDataString(fromBlock);
+        final String toState = NMSUtil.getInstance().getBlockDataString(toBlock);
+        Tristate result = flowCache.getIfPresent(targetClaim, user.getUniqueId(), fromBlock.getType(), fromState, toBlock.getType(), toState);
+        if (result == null) {
+            result = GDPermissionManager.getInstance().getFinalPermission(event, location, targetClaim, Flags.LIQUID_FLOW, fromBlock, toBlock, user, TrustTypes.BUILDER, true);
+            flowCache.put(targetClaim, user.getUniqueId(), fromBlock.getType(), fromState, toBlock.getType(), toState, result);
+        }
+        if (sameClaim) {
+            flowCache.putSameClaimResult(targetClaim, user.getUniqueId(), fromBlock.getType(), toBlock.getType(), result);
+        }
+        return result;
+    }
+
+    // The source block is adjacent to the target, so it is in the target claim if it is within its bounds and outside of its children
+    private static boolean isWithinClaim(GDClaim claim, Block block) {
+        final int x = block.getX();
+        final int y = block.getY();
+        final int z = block.getZ();
+        if (!claim.contains(x, y, z, true)) {
+            return false;
+        }
+        for (Claim child : claim.children) {
+            if (((GDClaim) child).contains(x, y, z, true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean handleBlockBreak(BlockEvent event, Location location, GDClaim claim, Object source, Object target, GDPermissionUser user, boolean sendDenyMessage) {
         // check overrides
         final Tristate result = GDPermissionManager.getInstance().getFinalPermission(event, location, claim, Flags.BLOCK_BREAK, source, target, user, TrustTypes.BUILDER, true);
@@ -432,53 +480,48 @@ public void onBlockNotify(BlockPhysicsEvent event) {
             return;
         }
 
-        final GDPermissionUser user = CauseContextHelper.getEventUser(sourceLocation);
-        final Location location = event.getBlock().getLocation();
-        if (user == null) {
+        final World world = event.getBlock().getWorld();
+        if (!GriefDefenderPlugin.getInstance().claimsEnabledForWorld(world.getUID())) {
             return;
         }
 
-        final World world = event.getBlock().getWorld();
-        if (!GriefDefenderPlugin.getInstance().claimsEnabledForWorld(world.getUID())) {
+        final BlockPhysicsCache physicsCache = BlockPhysicsCache.getInstance();
+        physicsCache.startEvent();
+        // Physics into wilderness is always allowed so skip chunks without claims
+        final GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(world.getUID());
+        if (!claimWorldManager.hasChunkClaims(event.getBlock().getX() >> 4, event.getBlock().getZ() >> 4)) {
+            physicsCache.skip();
             return;
         }
 
-        final GDPlayerData playerData =  GriefDefenderPlugin.getInstance().dataStore.getOrCreatePlayerData(world, user.getUniqueId());
-        final GDClaim sourceClaim = this.storage.getClaimAt(sourceLocation);
+        final Location location = event.getBlock().getLocation();
         final GDClaim targetClaim = this.storage.getClaimAt(location);
-        if (sourceClaim.isWilderness() && targetClaim.isWilderness()) {
-            if (playerData != null) {
-                playerData.eventResultCache = new EventResultCache(targetClaim, "block-notify", Tristate.TRUE);
-            }
-
+        if (targetClaim.isWilderness()) {
+            physicsCache.skip();
             return;
-        } else if (!sourceClaim.isWilderness() && targetClaim.isWilderness()) {
-            if (playerData != null) {
-                playerData.eventResultCache = new EventResultCache(targetClaim, "block-notify", Tristate.TRUE);
-            }
-
+        }
+        // Redstone sources can end up in target
+        final GDClaim sourceClaim = this.storage.getClaimAt(sourceLocation);
+        if (sourceClaim.getUniqueId().equals(targetClaim.getUniqueId())) {
+            physicsCache.skip();
             return;
-        } // Redstone sources can end up in target
-        else if (sourceClaim.getUniqueId().equals(targetClaim.getUniqueId())) {
-            if (playerData != null) {
-                playerData.eventResultCache = new EventResultCache(targetClaim, "block-notify", Tristate.TRUE);
-            }
+        }
 
+        final GDPermissionUser user = CauseContextHelper.getEventUser(sourceLocation);
+        if (user == null) {
+            physicsCache.skip();
             return;
-        } else {
-            if (playerData.eventResultCache != null && playerData.eventResultCache.checkEventResultCache(targetClaim) == Tristate.TRUE) {
-                return;
-            }
-            // Needed to handle levers notifying doors to open etc.
-            if (targetClaim.isUserTrusted(user, TrustTypes.ACCESSOR)) {
-                if (playerData != null) {
-                    playerData.eventResultCache = new EventResultCache(targetClaim, "block-notify", Tristate.TRUE);
-                }
-                return;
-            }
         }
 
-        event.setCancelled(true);
+        Tristate result = physicsCache.getResult(sourceClaim, targetClaim, user);
+        if (result == Tristate.UNDEFINED) {
+            // Needed to handle levers notifying doors to open etc.
+            result = Tristate.fromBoolean(targetClaim.isUserTrusted(user, TrustTypes.ACCESSOR));
+            physicsCache.addResult(sourceClaim, targetClaim, user, result);
+        }
+        if (result == Tristate.FALSE) {
+            event.setCancelled(true);
+        }
     }
 
     @EventHandler(priority = EventPriority.LOWEST)
@@ -496,31 +539,7 @@ public void onExplosionEvent(BlockExplodeEvent event) {
 
         final GDPermissionUser user = CauseContextHelper.getEventUser(event.getBlock().getLocation(), PlayerTracker.Type.OWNER);
         GDTimings.EXPLOSION_EVENT.startTiming();
-        GDClaim targetClaim = null;
-        final List<Block> filteredLocations = new ArrayList<>();
-        final String sourceId = GDPermissionManager.getInstance().getPermissionIdentifier(source);
-        boolean denySurfaceExplosion = GriefDefenderPlugin.getActiveConfig(world.getUID()).getConfig().claim.explosionBlockSurfaceBlacklist.contains(sourceId);
-        if (!denySurfaceExplosion) {
-            denySurfaceExplosion = GriefDefenderPlugin.getActiveConfig(world.getUID()).getConfig().claim.explosionBlockSurfaceBlacklist.contains("any");
-        }
-        final int surfaceBlockLevel = GriefDefenderPlugin.getActiveConfig(world.getUID()).getConfig().claim.explosionSurfaceBlockLevel;
-        for (Block block : event.blockList()) {
-            final Location location = block.getLocation();
-            if (location.getBlock().isEmpty()) {
-                continue;
-            }
-            targetClaim =  GriefDefenderPlugin.getInstance().dataStore.getClaimAt(location);
-            if (denySurfaceExplosion && block.getWorld().getEnvironment() != Environment.NETHER && location.getBlockY() >= surfaceBlockLevel) {
-                filteredLocations.add(block);
-                GDPermissionManager.getInstance().processEventLog(event, location, targetClaim, Flags.EXPLOSION_BLOCK.getPermission(), source, block, user, "explosion-surface", Tristate.FALSE);
-                continue;
-            }
-            Tristate result = GDPermissionManager.getInstance().getFinalPermission(event, location, targetClaim, Flags.EXPLOSION_BLOCK, source, block, user, true);
-            if (result == Tristate.FALSE) {
-                filteredLocations.add(block);
-            }
-        }
-
+        final List<Block> filteredLocations = CommonBlockEventHandler.getInstance().getDeniedExplosionBlocks(event, world, source, user, event.blockList());
         if (event.isCancelled()) {
             event.blockList().clear();
         } else if (!filteredLocations.isEmpty()) {
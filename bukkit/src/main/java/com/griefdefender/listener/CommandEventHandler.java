@@ -292,6 +292,7 @@ public void onPlayerCommandMonitor(PlayerCommandPreprocessEvent event) {
         if (command.equalsIgnoreCase("datapack") && (arguments.contains("enable") || arguments.contains("disable"))) {
             if (GriefDefenderPlugin.getInstance().getTagProvider() != null) {
                 GriefDefenderPlugin.getInstance().getTagProvider().refresh();
+                GDPermissionManager.getInstance().clearContextCache();
             }
         }
     }
@@ -27,6 +27,7 @@
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.World.Environment;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.entity.Entity;
@@ -40,6 +41,8 @@
 import com.griefdefender.api.permission.flag.Flags;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.claim.GDClaim;
+import com.griefdefender.claim.GDClaimManager;
+import com.griefdefender.configuration.GriefDefenderConfig;
 import com.griefdefender.event.GDCauseStackManager;
 import com.griefdefender.internal.tracking.PlayerTracker;
 import com.griefdefender.internal.util.NMSUtil;
@@ -49,6 +52,11 @@
 import com.griefdefender.storage.BaseStorage;
 import com.griefdefender.util.CauseContextHelper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class CommonBlockEventHandler {
 
     private static CommonBlockEventHandler instance;
@@ -229,4 +237,56 @@ public void handleBlockBreak(Event event, Object source, BlockState blockState)
             ((Cancellable) event).setCancelled(true);
         }
     }
+
+    /**
+     * Gets the blocks of an explosion that must not be destroyed.
+     * 
+     * @param event The explosion event
+     * @param world The world
+     * @param source The explosion source
+     * @param user The user who caused the explosion, null if none
+     * @param blockList The blocks to be destroyed
+     * @return The blocks to remove from the explosion
+     */
+    public List<Block> getDeniedExplosionBlocks(Event event, World world, Object source, GDPermissionUser user, List<Block> blockList) {
+        final GriefDefenderConfig<?> activeConfig = GriefDefenderPlugin.getActiveConfig(world.getUID());
+        final String sourceId = GDPermissionManager.getInstance().getPermissionIdentifier(source);
+        boolean denySurfaceExplosion = activeConfig.getConfig().claim.explosionBlockSurfaceBlacklist.contains(sourceId);
+        if (!denySurfaceExplosion) {
+            denySurfaceExplosion = activeConfig.getConfig().claim.explosionBlockSurfaceBlacklist.contains("any");
+        }
+        final int surfaceBlockLevel = activeConfig.getConfig().claim.explosionSurfaceBlockLevel;
+        final GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(world.getUID());
+        final List<Block> filteredLocations = new ArrayList<>();
+        for (Map.Entry<GDClaim, List<Block>> mapEntry : claimWorldManager.resolveClaims(blockList).entrySet()) {
+            final GDClaim targetClaim = mapEntry.getKey();
+            // Blocks of the same state within a claim share contexts so only check each state once
+            final boolean cacheResults = !GriefDefenderPlugin.debugActive && GriefDefenderPlugin.getInstance().getSlimefunProvider() == null
+                    && (user == null || targetClaim.getEconomyData() == null || !targetClaim.getEconomyData().isRented());
+            final Map<String, Tristate> blockResults = new HashMap<>();
+            for (Block block : mapEntry.getValue()) {
+                if (block.isEmpty()) {
+                    continue;
+                }
+                final Location location = block.getLocation();
+                if (denySurfaceExplosion && world.getEnvironment() != Environment.NETHER && location.getBlockY() >= surfaceBlockLevel) {
+                    filteredLocations.add(block);
+                    GDPermissionManager.getInstance().processEventLog(event, location, targetClaim, Flags.EXPLOSION_BLOCK.getPermission(), source, block, user, "explosion-surface", Tristate.FALSE);
+                    continue;
+                }
+                final String blockKey = cacheResults ? block.getType().name() + NMSUtil.getInstance().getBlockDataString(block) : null;
+                Tristate result = blockKey != null ? blockResults.get(blockKey) : null;
+                if (result == null) {
+                    result = GDPermissionManager.getInstance().getFinalPermission(event, location, targetClaim, Flags.EXPLOSION_BLOCK, source, block, user, true);
+                    if (blockKey != null) {
+                        blockResults.put(blockKey, result);
+                    }
+                }
+                if (result == Tristate.FALSE) {
+                    filteredLocations.add(block);
+                }
+            }
+        }
+        return filteredLocations;
+    }
 }
@@ -148,11 +148,14 @@ public boolean onEntityMove(Event event, Location fromLocation, Location toLocat
         }
 
         GDClaim fromClaim = null;
-        GDClaim toClaim = this.storage.getClaimAt(toLocation);
+        GDClaim toClaim = null;
         if (user != null) {
+            // Player lookups use the last claim cache of player data
             fromClaim = this.storage.getClaimAtPlayer(user.getInternalPlayerData(), fromLocation);
+            toClaim = this.storage.getClaimAtPlayer(user.getInternalPlayerData(), toLocation);
         } else {
             fromClaim = this.storage.getClaimAt(fromLocation);
+            toClaim = this.storage.getClaimAt(toLocation);
         }
 
         if (fromClaim == toClaim) {
@@ -442,6 +445,11 @@ private void checkPlayerFlight(GDPermissionUser user, GDClaim fromClaim, GDClaim
         if (user == null) {
             return;
         }
+        final GDPlayerData playerData = user.getInternalPlayerData();
+        // Drop the previous claim's option on every transition, even if the player is not flying yet
+        if (fromClaim != toClaim && playerData != null) {
+            playerData.optionNoFly = null;
+        }
         final Player player = user.getOnlinePlayer();
         if (player == null || !player.isFlying()) {
             // Most likely Citizens NPC
@@ -451,7 +459,6 @@ private void checkPlayerFlight(GDPermissionUser user, GDClaim fromClaim, GDClaim
             return;
         }
 
-        final GDPlayerData playerData = user.getInternalPlayerData();
         final GameMode gameMode = player.getGameMode();
         if (gameMode == GameMode.SPECTATOR) {
             return;
@@ -468,6 +475,15 @@ private void checkPlayerFlight(GDPermissionUser user, GDClaim fromClaim, GDClaim
             return;
         }
 
+        Boolean noFly = playerData.optionNoFly;
+        if (noFly == null) {
+            noFly = GDPermissionManager.getInstance().getInternalOptionValue(TypeToken.of(Boolean.class), playerData.getSubject(), Options.PLAYER_DENY_FLIGHT, toClaim);
+            playerData.optionNoFly = noFly;
+        }
+        if (noFly == null || !noFly) {
+            return;
+        }
+
         boolean trustFly = false;
         if (toClaim.isBasicClaim() || (toClaim.parent != null && toClaim.parent.isBasicClaim()) || toClaim.isInTown()) {
             // check owner
@@ -490,13 +506,10 @@ private void checkPlayerFlight(GDPermissionUser user, GDClaim fromClaim, GDClaim
             return;
         }
 
-        final Boolean noFly = GDPermissionManager.getInstance().getInternalOptionValue(TypeToken.of(Boolean.class), playerData.getSubject(), Options.PLAYER_DENY_FLIGHT, toClaim);
-        if (noFly != null && noFly) {
-            player.setAllowFlight(false);
-            player.setFlying(false);
-            playerData.ignoreFallDamage = true;
-            GriefDefenderPlugin.sendMessage(player, MessageCache.getInstance().OPTION_APPLY_PLAYER_DENY_FLIGHT);
-        }
+        player.setAllowFlight(false);
+        player.setFlying(false);
+        playerData.ignoreFallDamage = true;
+        GriefDefenderPlugin.sendMessage(player, MessageCache.getInstance().OPTION_APPLY_PLAYER_DENY_FLIGHT);
     }
 
     private void checkPlayerGodMode(GDPermissionUser user, GDClaim fromClaim, GDClaim toClaim) {
@@ -512,7 +525,6 @@ private void checkPlayerGodMode(GDPermissionUser user, GDClaim fromClaim, GDClai
             return;
         }
 
-        final GDPlayerData playerData = user.getInternalPlayerData();
         final GameMode gameMode = player.getGameMode();
         if (gameMode == GameMode.CREATIVE || gameMode == GameMode.SPECTATOR || !player.isInvulnerable()) {
             return;
@@ -551,7 +563,10 @@ private void checkPlayerGameMode(GDPermissionUser user, GDClaim fromClaim, GDCla
             playerData.optionGameModeType = gameModeType;
         }
         if (gameModeType == GameModeTypes.UNDEFINED && playerData.lastGameMode != GameModeTypes.UNDEFINED) {
-            player.setGameMode(PlayerUtil.GAMEMODE_MAP.get(playerData.lastGameMode));
+            final GameMode lastGameMode = PlayerUtil.GAMEMODE_MAP.get(playerData.lastGameMode);
+            if (currentGameMode != lastGameMode) {
+                player.setGameMode(lastGameMode);
+            }
             return;
         }
 
@@ -688,10 +703,13 @@ public void checkPlayerWeather(GDPermissionUser user, GDClaim fromClaim, GDClaim
 
         final GDPlayerData playerData = user.getInternalPlayerData();
         WeatherType weatherType = playerData.optionWeatherType;
-        if (weatherType == null || fromClaim != toClaim) {
-            weatherType = GDPermissionManager.getInstance().getInternalOptionValue(TypeToken.of(WeatherType.class), playerData.getSubject(), Options.PLAYER_WEATHER, toClaim);
-            playerData.optionWeatherType = weatherType;
+        if (weatherType != null && fromClaim == toClaim && !force) {
+            // Already applied when the claim was entered or the option cache was reset
+            return;
         }
+
+        weatherType = GDPermissionManager.getInstance().getInternalOptionValue(TypeToken.of(WeatherType.class), playerData.getSubject(), Options.PLAYER_WEATHER, toClaim);
+        playerData.optionWeatherType = weatherType;
         if (weatherType == null || weatherType == WeatherTypes.UNDEFINED) {
             player.resetPlayerWeather();
             return;
@@ -29,7 +29,13 @@
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import com.griefdefender.cache.FlagDecisionCache;
+import com.griefdefender.cache.FlagDefaultTable;
+import com.griefdefender.cache.FlagPresenceIndex;
+import com.griefdefender.cache.OptionValueCache;
 import com.griefdefender.cache.PermissionHolderCache;
+import com.griefdefender.claim.GDClaim;
+import com.griefdefender.permission.GDPermissionGroup;
 import com.griefdefender.permission.GDPermissionUser;
 
 import net.luckperms.api.LuckPerms;
@@ -50,6 +56,12 @@ public LuckPermsEventHandler(LuckPerms luckPermsApi) {
     }
 
     public void onGroupDataRecalculate(GroupDataRecalculateEvent event) {
+        final GDPermissionGroup group = PermissionHolderCache.getInstance().getOrCreateGroup(event.getGroup().getName());
+        FlagDecisionCache.getInstance().invalidate(group);
+        OptionValueCache.getInstance().invalidate(group);
+        FlagDefaultTable.getInstance().invalidateAll();
+        FlagPresenceIndex.getInstance().invalidate();
+        GDClaim.invalidateGroupTrust();
         for (Player player : Bukkit.getOnlinePlayers()) {
             final GDPermissionUser user = PermissionHolderCache.getInstance().getOrCreateUser(player);
             user.getInternalPlayerData().resetOptionCache();
@@ -67,6 +79,8 @@ public void onGroupDataRecalculate(GroupDataRecalculateEvent event) {
 
     public void onUserDataRecalculate(UserDataRecalculateEvent event) {
         final GDPermissionUser user = PermissionHolderCache.getInstance().getOrCreateUser(event.getUser().getUniqueId());
+        FlagDecisionCache.getInstance().invalidate(user);
+        OptionValueCache.getInstance().invalidate(user);
         if (user.getOnlinePlayer() != null) {
             user.getInternalPlayerData().resetOptionCache();
             user.getInternalPlayerData().refreshPlayerOptions();
@@ -46,6 +46,7 @@
 import com.griefdefender.api.permission.flag.Flags;
 import com.griefdefender.api.permission.option.Options;
 import com.griefdefender.api.permission.option.type.CreateModeTypes;
+import com.griefdefender.cache.FlagDecisionCache;
 import com.griefdefender.cache.MessageCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.claim.GDClaim;
@@ -241,6 +242,7 @@ public void onPlayerQuit(PlayerQuitEvent event) {
             player.setHealth(0);
         }
         playerData.onDisconnect();
+        FlagDecisionCache.getInstance().remove(playerData.getSubject());
         PaginationUtil.getInstance().removeActivePageData(player.getUniqueId());
         if (playerData.getClaims().isEmpty()) {
             this.dataStore.clearCachedPlayerData(player.getWorld().getUID(), playerID);
@@ -471,7 +473,7 @@ private void onInventoryOpen(Event event, Location location, Object target, Huma
         GDTimings.PLAYER_INTERACT_INVENTORY_OPEN_EVENT.startTiming();
         final GDClaim claim = this.dataStore.getClaimAt(location);
         final GDPermissionUser user = PermissionHolderCache.getInstance().getOrCreateUser(player.getUniqueId());
-        if (user.getInternalPlayerData() != null && user.getInternalPlayerData().eventResultCache != null && user.getInternalPlayerData().eventResultCache.checkEventResultCache(claim, Flags.INTERACT_BLOCK_SECONDARY.getName()) == Tristate.TRUE) {
+        if (user.getInternalPlayerData() != null && user.getInternalPlayerData().eventResultCache.checkEventResultCache(claim, Flags.INTERACT_BLOCK_SECONDARY) == Tristate.TRUE) {
             GDPermissionManager.getInstance().processResult(claim, Flags.INTERACT_INVENTORY.getPermission(), "cache", Tristate.TRUE, user);
             GDTimings.PLAYER_INTERACT_INVENTORY_OPEN_EVENT.stopTiming();
             return;
@@ -244,6 +244,7 @@ public static void migrate(World world) throws FileNotFoundException, ClassNotFo
                         claimDataConfig.getManagers().add(managerUser.getUniqueId());
                     }
                 }
+                claimDataConfig.invalidateUserTrustIndex();
                 final Set<Context> claimContextSet = new HashSet<>();
                 claimContextSet.add(newClaim.getContext());
 
@@ -25,7 +25,10 @@
  */
 package com.griefdefender.permission;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 import com.griefdefender.GDPlayerData;
 import com.griefdefender.GriefDefenderPlugin;
@@ -52,8 +55,11 @@
 import com.griefdefender.api.permission.option.type.GameModeTypes;
 import com.griefdefender.api.permission.option.type.WeatherType;
 import com.griefdefender.api.permission.option.type.WeatherTypes;
-import com.griefdefender.cache.EventResultCache;
+import com.griefdefender.cache.FlagDecisionCache;
+import com.griefdefender.cache.FlagDefaultTable;
+import com.griefdefender.cache.FlagPresenceIndex;
 import com.griefdefender.cache.MessageCache;
+import com.griefdefender.cache.OptionValueCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.claim.GDClaim;
 import com.griefdefender.claim.GDClaimManager;
@@ -120,6 +126,7 @@
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -129,15 +136,18 @@ public class GDPermissionManager implements PermissionManager {
 
     private static GDPermissionManager instance;
     public boolean blacklistCheck = false;
-    private Event currentEvent;
-    private Location eventLocation;
-    private GDPermissionHolder eventSubject;
-    private GDPlayerData eventPlayerData;
-    private String eventSourceId = "none";
-    private String eventTargetId = "none";
-    private Set<Context> eventContexts = new HashSet<>();
-    private Component eventMessage;
     private static final Pattern PATTERN_META = Pattern.compile("\\.[\\d+]*$");
+    private static final int MAX_CACHED_IDS = 10000;
+
+    // Enum constant -> Permission identifier
+    private final Map<Enum<?>, String> enumIdCache = new ConcurrentHashMap<>();
+    // Material -> NMS key
+    private final Map<Material, String> materialKeyCache = new ConcurrentHashMap<>();
+    // Permission -> Flag
+    private final Map<String, Flag> permissionFlagCache = new ConcurrentHashMap<>();
+    // Id -> Shared source/target contexts
+    private final Cache<String, IdContexts> sourceContextCache = Caffeine.newBuilder().maximumSize(MAX_CACHED_IDS).build();
+    private final Cache<String, IdContexts> targetContextCache = Caffeine.newBuilder().maximumSize(MAX_CACHED_IDS).build();
 
     private enum BanType {
         BLOCK,
@@ -145,6 +155,17 @@ private enum BanType {
         ITEM
     }
 
+    private static class IdContexts {
+
+        private final String id;
+        private final Set<Context> contexts;
+
+        private IdContexts(String id, Set<Context> contexts) {
+            this.id = id;
+            this.contexts = contexts;
+        }
+    }
+
     public GDPermissionHolder getDefaultHolder() {
         return GriefDefenderPlugin.DEFAULT_HOLDER;
     }
@@ -186,25 +207,29 @@ public Tristate getFinalPermission(Event event, Location location, Set<Context>
             return Tristate.TRUE;
         }
 
+        final PermissionQuery query = PermissionQuery.acquire();
+        try {
+            return this.getFinalPermission(query, event, location, contexts, claim, flag, source, target, permissionHolder, type, checkOverride);
+        } finally {
+            query.release();
+        }
+    }
+
+    private Tristate getFinalPermission(PermissionQuery query, Event event, Location location, Set<Context> contexts, Claim claim, Flag flag, Object source, Object target, GDPermissionHolder permissionHolder, TrustType type, boolean checkOverride) {
         GDPlayerData playerData = null;
         final GDPermissionUser user = permissionHolder instanceof GDPermissionUser ? (GDPermissionUser) permissionHolder : null;
-        this.eventSubject = user;
-        this.eventMessage = null;
-        this.eventSourceId = "none";
-        this.eventTargetId = "none";
+        query.subject = user;
         if (permissionHolder != null) {
             if (user != null) {
                 playerData = GriefDefenderPlugin.getInstance().dataStore.getOrCreatePlayerData(claim.getWorldUniqueId(), user.getUniqueId());
             }
         }
 
-        this.currentEvent = event;
-        this.eventLocation = location;
-        // refresh contexts
-        this.eventContexts = new HashSet<>();
+        query.event = event;
+        query.location = location;
 
         if (source instanceof Player && flag != Flags.COLLIDE_BLOCK && flag != Flags.COLLIDE_ENTITY) {
-            this.addPlayerContexts((Player) source, contexts, flag);
+            this.addPlayerContexts(query, (Player) source, contexts, flag);
         }
         if (!(source instanceof Player) && target instanceof Player && user != null && user.getOnlinePlayer() != null && !user.getUniqueId().equals(((Player) target).getUniqueId())) {
             // add source player context
@@ -228,8 +253,8 @@ public Tristate getFinalPermission(Event event, Location location, Set<Context>
         contexts.addAll(sourceContexts);
         contexts.addAll(targetContexts);
         contexts.add(((GDClaim) claim).getWorldContext());
-        this.eventContexts = contexts;
-        this.eventPlayerData = playerData;
+        query.setContexts(contexts);
+        query.playerData = playerData;
         final String targetPermission = flag.getPermission();
 
         if (flag == Flags.ENTITY_SPAWN && GDOptions.SPAWN_LIMIT && target instanceof LivingEntity) {
@@ -249,32 +274,32 @@ public Tristate getFinalPermission(Event event, Location location, Set<Context>
                                 "limit", spawnLimit));
                         GriefDefenderPlugin.sendMessage(user.getOnlinePlayer(), message);
                     }
-                    return this.processResult(claim, flag.getPermission(), "spawn-limit", Tristate.FALSE, this.eventSubject);
+                    return this.processResult(query, claim, flag.getPermission(), "spawn-limit", Tristate.FALSE, query.subject);
                 }
             }
         }
 
         if (user != null && playerData != null && !playerData.debugClaimPermissions && playerData.canIgnoreClaim(claim)) {
-            return processResult(claim, targetPermission, "ignore", Tristate.TRUE, user);
+            return processResult(query, claim, targetPermission, "ignore", Tristate.TRUE, user);
         }
         if (checkOverride) {
             // First check for claim flag overrides
-            final Tristate override = getFlagOverride(claim, permissionHolder == null ? GriefDefenderPlugin.DEFAULT_HOLDER : permissionHolder, playerData, targetPermission);
+            final Tristate override = getFlagOverride(query, claim, permissionHolder == null ? GriefDefenderPlugin.DEFAULT_HOLDER : permissionHolder, playerData, targetPermission);
             if (override != Tristate.UNDEFINED) {
-                return processResult(claim, targetPermission, type == null ? "none" : type.getName().toLowerCase(), override, user);
+                return processResult(query, claim, targetPermission, type == null ? "none" : type.getName().toLowerCase(), override, user);
             }
         }
 
         if (playerData != null && user != null) {
             if (playerData.debugClaimPermissions) {
                 if (type != null && claim.isUserTrusted(user.getUniqueId(), type)) {
-                    return processResult(claim, targetPermission, type.getName().toLowerCase(), Tristate.TRUE, user);
+                    return processResult(query, claim, targetPermission, type.getName().toLowerCase(), Tristate.TRUE, user);
                 }
-                return getClaimFlagPermission(claim, targetPermission);
+                return getClaimFlagPermission(query, claim, targetPermission);
             }
              // Check for ignoreclaims after override and debug checks
             if (playerData.canIgnoreClaim(claim)) {
-                return processResult(claim, targetPermission, "ignore", Tristate.TRUE, user);
+                return processResult(query, claim, targetPermission, "ignore", Tristate.TRUE, user);
             }
         }
         if (user != null) {
@@ -288,19 +313,19 @@ public Tristate getFinalPermission(Event event, Location location, Set<Context>
                     flag != Flags.ENTITY_TELEPORT_TO &&
                     flag != Flags.INTERACT_INVENTORY_CLICK) {
                 if (claim.getOwnerUniqueId() != null && user != null && claim.getOwnerUniqueId().equals(user.getUniqueId())) {
-                    return processResult(claim, targetPermission, "rent-owner-deny", Tristate.FALSE, user);
+                    return processResult(query, claim, targetPermission, "rent-owner-deny", Tristate.FALSE, user);
                 }
 
                 if (EconomyUtil.getInstance().isRenter(claim, user) && (targetPermission.contains("interact") || targetPermission.contains("block"))) {
                     if ((targetPermission.contains("interact") || targetPermission.contains("block-place"))) {
                         final boolean hasInventory = NMSUtil.getInstance().isTileInventory(location) || location.getBlock().getType() == Material.ENDER_CHEST;
                         if (!hasInventory || flag == Flags.BLOCK_PLACE) {
-                            return processResult(claim, targetPermission, "renter-interact", Tristate.TRUE, user);
+                            return processResult(query, claim, targetPermission, "renter-interact", Tristate.TRUE, user);
                         }
                         // check entity interactions
                         if (targetPermission.contains("interact-entity") && target instanceof LivingEntity) {
                             // Allow interaction with all living entities
-                            return processResult(claim, targetPermission, "renter-interact", Tristate.TRUE, user);
+                            return processResult(query, claim, targetPermission, "renter-interact", Tristate.TRUE, user);
                         }
                     }
 
@@ -310,7 +335,7 @@ public Tristate getFinalPermission(Event event, Location location, Set<Context>
                     final GDPermissionUser owner = gdChunk.getBlockOwner(location);
                     if (owner != null && owner.getUniqueId().equals(user.getUniqueId())) {
                         // allow
-                        return processResult(claim, targetPermission, "renter-owned", Tristate.TRUE, user);
+                        return processResult(query, claim, targetPermission, "renter-owned", Tristate.TRUE, user);
                     }
                 }
             }
@@ -319,25 +344,50 @@ public Tristate getFinalPermission(Event event, Location location, Set<Context>
                     // check persisted flags
                     if (!claim.isWilderness()) {
                         if ((claim.isAdminClaim() && !user.getInternalPlayerData().canManageAdminClaims) || !user.getUniqueId().equals(claim.getOwnerUniqueId())) {
-                            final Tristate result = getUserPermission(user, claim, targetPermission, PermissionDataType.USER_PERSISTENT);
+                            final Tristate result = getUserPermission(query, user, claim, targetPermission, PermissionDataType.USER_PERSISTENT);
                             if (result != Tristate.UNDEFINED) {
-                                return processResult(claim, targetPermission, result, user);
+                                return processResult(query, claim, targetPermission, result, user);
                             }
                         }
                     }
-                    return processResult(claim, targetPermission, type.getName().toLowerCase(), Tristate.TRUE, permissionHolder);
+                    return processResult(query, claim, targetPermission, type.getName().toLowerCase(), Tristate.TRUE, permissionHolder);
                 }
             }
-            return getUserPermission(user, claim, targetPermission, PermissionDataType.PERSISTENT);
+            return getCachedFlagPermission(query, user, claim, targetPermission);
         }
 
-        return getClaimFlagPermission(claim, targetPermission);
+        return getCachedFlagPermission(query, GriefDefenderPlugin.DEFAULT_HOLDER, claim, targetPermission);
+    }
+
+    // Only caches the context lookups, trust and overrides are always checked beforehand
+    private Tristate getCachedFlagPermission(PermissionQuery query, GDPermissionHolder holder, Claim claim, String permission) {
+        if (GriefDefenderPlugin.debugActive || !PermissionUtil.getInstance().canCacheResults()) {
+            // Each lookup must be logged
+            return this.getFlagPermission(query, holder, claim, permission);
+        }
+
+        Tristate value = FlagDecisionCache.getInstance().getIfPresent(holder, claim, permission, query.contexts, query.getContextsHash());
+        if (value != null) {
+            return processResult(query, claim, permission, value, holder);
+        }
+
+        final int generation = FlagDecisionCache.getInstance().getGeneration();
+        value = this.getFlagPermission(query, holder, claim, permission);
+        FlagDecisionCache.getInstance().put(holder, claim, permission, query.contexts, query.getContextsHash(), value, generation);
+        return value;
+    }
+
+    private Tristate getFlagPermission(PermissionQuery query, GDPermissionHolder holder, Claim claim, String permission) {
+        if (holder == GriefDefenderPlugin.DEFAULT_HOLDER) {
+            return getClaimFlagPermission(query, claim, permission);
+        }
+        return getUserPermission(query, holder, claim, permission, PermissionDataType.PERSISTENT);
     }
 
-    private Tristate getUserPermission(GDPermissionHolder holder, Claim claim, String permission, PermissionDataType dataType) {
+    private Tristate getUserPermission(PermissionQuery query, GDPermissionHolder holder, Claim claim, String permission, PermissionDataType dataType) {
         final List<Claim> inheritParents = claim.getInheritedParents();
         final Set<Context> contexts = new HashSet<>();
-        contexts.addAll(this.eventContexts);
+        contexts.addAll(query.contexts);
 
         for (Claim parentClaim : inheritParents) {
             GDClaim parent = (GDClaim) parentClaim;
@@ -345,7 +395,7 @@ private Tristate getUserPermission(GDPermissionHolder holder, Claim claim, Strin
             contexts.add(parent.getContext());
             Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, holder, permission, contexts, dataType);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, permission, value, holder);
+                return processResult(query, claim, permission, value, holder);
             }
 
             contexts.remove(parent.getContext());
@@ -355,7 +405,7 @@ private Tristate getUserPermission(GDPermissionHolder holder, Claim claim, Strin
         contexts.add(claim.getContext());
         Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, holder, permission, contexts, dataType);
         if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, holder);
+            return processResult(query, claim, permission, value, holder);
         }
         if (dataType == PermissionDataType.USER_PERSISTENT) {
             // don't log, just return result
@@ -364,26 +414,29 @@ private Tristate getUserPermission(GDPermissionHolder holder, Claim claim, Strin
 
         // Group MUST inherit default group or above will return undefined if no permission set on non-default group/user.
         contexts.remove(claim.getContext());
-        return getFlagDefaultPermission(claim, permission, contexts);
+        return getFlagDefaultPermission(query, claim, permission, contexts);
     }
 
-    private Tristate getClaimFlagPermission(Claim claim, String permission) {
-        return this.getClaimFlagPermission(claim, permission, new HashSet<>(), null);
+    private Tristate getClaimFlagPermission(PermissionQuery query, Claim claim, String permission) {
+        return this.getClaimFlagPermission(query, claim, permission, new HashSet<>(), null);
     }
 
-    private Tristate getClaimFlagPermission(Claim claim, String permission, Set<Context> contexts, List<Claim> inheritParents) {
+    private Tristate getClaimFlagPermission(PermissionQuery query, Claim claim, String permission, Set<Context> contexts, List<Claim> inheritParents) {
+        final FlagPresenceIndex presenceIndex = FlagPresenceIndex.getInstance();
         if (contexts.isEmpty()) {
             if (inheritParents == null) {
                 inheritParents = claim.getInheritedParents();
             }
-            contexts.addAll(this.eventContexts);
+            contexts.addAll(query.contexts);
             for (Claim parentClaim : inheritParents) {
                 GDClaim parent = (GDClaim) parentClaim;
                 // check parent context
                 contexts.add(parent.getContext());
-                Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
-                if (value != Tristate.UNDEFINED) {
-                    return processResult(claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+                if (presenceIndex.mayContain(permission, contexts)) {
+                    Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
+                    if (value != Tristate.UNDEFINED) {
+                        return processResult(query, claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+                    }
                 }
 
                 contexts.remove(parent.getContext());
@@ -391,50 +444,62 @@ private Tristate getClaimFlagPermission(Claim claim, String permission, Set<Cont
             contexts.add(claim.getContext());
         }
 
-        Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
-        if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+        if (presenceIndex.mayContain(permission, contexts)) {
+            Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
+            if (value != Tristate.UNDEFINED) {
+                return processResult(query, claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+            }
         }
 
-        return getFlagDefaultPermission(claim, permission, contexts);
+        return getFlagDefaultPermission(query, claim, permission, contexts);
     }
 
     // Only uses world and claim type contexts
-    private Tristate getFlagDefaultPermission(Claim claim, String permission, Set<Context> contexts) {
+    private Tristate getFlagDefaultPermission(PermissionQuery query, Claim claim, String permission, Set<Context> contexts) {
         contexts.add(claim.getDefaultTypeContext());
-        Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
-        if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
-        }
-        contexts.remove(claim.getDefaultTypeContext());
-        if (!claim.isWilderness()) {
-            contexts.add(ClaimContexts.GLOBAL_DEFAULT_CONTEXT);
-            contexts.add(ClaimContexts.USER_DEFAULT_CONTEXT);
+        Tristate value = Tristate.UNDEFINED;
+        // Default contexts only differ by claim type so a single presence check covers each lookup
+        if (FlagPresenceIndex.getInstance().mayContain(permission, contexts)) {
             value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+                return processResult(query, claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
             }
-            contexts.remove(ClaimContexts.USER_DEFAULT_CONTEXT);
-        } else {
-            contexts.add(ClaimContexts.GLOBAL_DEFAULT_CONTEXT);
-            value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
-            if (value != Tristate.UNDEFINED) {
-                return processResult(claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+            contexts.remove(claim.getDefaultTypeContext());
+            if (!claim.isWilderness()) {
+                contexts.add(ClaimContexts.GLOBAL_DEFAULT_CONTEXT);
+                contexts.add(ClaimContexts.USER_DEFAULT_CONTEXT);
+                value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
+                if (value != Tristate.UNDEFINED) {
+                    return processResult(query, claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+                }
+                contexts.remove(ClaimContexts.USER_DEFAULT_CONTEXT);
+            } else {
+                contexts.add(ClaimContexts.GLOBAL_DEFAULT_CONTEXT);
+                value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.DEFAULT_HOLDER, permission, contexts, PermissionDataType.PERSISTENT);
+                if (value != Tristate.UNDEFINED) {
+                    return processResult(query, claim, permission, value, GriefDefenderPlugin.DEFAULT_HOLDER);
+                }
             }
         }
 
         contexts.remove(ClaimContexts.GLOBAL_DEFAULT_CONTEXT);
         contexts.add(ClaimContexts.USER_DEFAULT_CONTEXT);
         contexts.add(claim.getDefaultTypeContext());
-        value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.GD_DEFAULT_HOLDER, permission, contexts, PermissionDataType.TRANSIENT);
+        value = FlagDefaultTable.getInstance().getIfPresent(permission, claim.getDefaultTypeContext());
+        if (value == null) {
+            // Defaults may be reapplied on another thread while resolving
+            final int generation = FlagDefaultTable.getInstance().getGeneration();
+            value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, GriefDefenderPlugin.GD_DEFAULT_HOLDER, permission, contexts, PermissionDataType.TRANSIENT);
+            FlagDefaultTable.getInstance().put(permission, claim.getDefaultTypeContext(), value, generation);
+        }
         if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, GriefDefenderPlugin.GD_DEFAULT_HOLDER);
+            return processResult(query, claim, permission, value, GriefDefenderPlugin.GD_DEFAULT_HOLDER);
         }
 
-        return processResult(claim, permission, Tristate.UNDEFINED, GriefDefenderPlugin.DEFAULT_HOLDER);
+        return processResult(query, claim, permission, Tristate.UNDEFINED, GriefDefenderPlugin.DEFAULT_HOLDER);
     }
 
-    private Tristate getFlagOverride(Claim claim, GDPermissionHolder permissionHolder, GDPlayerData playerData, String flagPermission) {
+    private Tristate getFlagOverride(PermissionQuery query, Claim claim, GDPermissionHolder permissionHolder, GDPlayerData playerData, String flagPermission) {
         if (!((GDClaim) claim).getInternalClaimData().allowFlagOverrides()) {
             return Tristate.UNDEFINED;
         }
@@ -457,7 +522,7 @@ private Tristate getFlagOverride(Claim claim, GDPermissionHolder permissionHolde
 
         contexts.add(((GDClaim) claim).getWorldContext());
         contexts.add(ClaimContexts.GLOBAL_OVERRIDE_CONTEXT);
-        contexts.addAll(this.eventContexts);
+        contexts.addAll(query.contexts);
 
         Tristate value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, permissionHolder, flagPermission, contexts, PermissionDataType.PERSISTENT);
         if (value == Tristate.UNDEFINED) {
@@ -465,7 +530,7 @@ private Tristate getFlagOverride(Claim claim, GDPermissionHolder permissionHolde
             /*final List<Claim> inheritParents = claim.getInheritedParents();
             contexts = new HashSet<>();
             contexts.add(((GDClaim) claim).getWorldContext());
-            contexts.addAll(this.eventContexts);
+            contexts.addAll(query.contexts);
             for (Claim parentClaim : inheritParents) {
                 GDClaim parent = (GDClaim) parentClaim;
                 // check parent override claim context
@@ -473,9 +538,9 @@ private Tristate getFlagOverride(Claim claim, GDPermissionHolder permissionHolde
                 value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, permissionHolder, flagPermission, contexts);
                 if (value != Tristate.UNDEFINED) {
                     if (value == Tristate.FALSE) {
-                        this.eventMessage = MessageCache.getInstance().PERMISSION_OVERRIDE_DENY;
+                        query.message = MessageCache.getInstance().PERMISSION_OVERRIDE_DENY;
                     }
-                    return processResult(claim, flagPermission, value, permissionHolder);
+                    return processResult(query, claim, flagPermission, value, permissionHolder);
                 }
 
                 contexts.remove(parent.getOverrideClaimContext());
@@ -484,30 +549,38 @@ private Tristate getFlagOverride(Claim claim, GDPermissionHolder permissionHolde
             // check claim owner override
             contexts = new HashSet<>();
             contexts.add(((GDClaim) claim).getWorldContext());
-            contexts.addAll(this.eventContexts);
+            contexts.addAll(query.contexts);
             contexts.add(claim.getOverrideClaimContext());
             value = PermissionUtil.getInstance().getPermissionValue((GDClaim) claim, permissionHolder, flagPermission, contexts, PermissionDataType.PERSISTENT);
         }
         if (value != Tristate.UNDEFINED) {
             if (value == Tristate.FALSE) {
-                this.eventMessage = MessageCache.getInstance().PERMISSION_OVERRIDE_DENY;
+                query.message = MessageCache.getInstance().PERMISSION_OVERRIDE_DENY;
             }
-            return processResult(claim, flagPermission, value, permissionHolder);
+            return processResult(query, claim, flagPermission, value, permissionHolder);
         }
 
         return Tristate.UNDEFINED;
     }
 
     public Tristate processResult(Claim claim, String permission, Tristate permissionValue, GDPermissionHolder permissionHolder) {
-        return processResult(claim, permission, null, permissionValue, permissionHolder);
+        return processResult(PermissionQuery.current(), claim, permission, null, permissionValue, permissionHolder);
     }
 
     public Tristate processResult(Claim claim, String permission, String trust, Tristate permissionValue, GDPermissionHolder permissionHolder) {
-        if (GriefDefenderPlugin.debugActive && this.currentEvent != null) {
+        return processResult(PermissionQuery.current(), claim, permission, trust, permissionValue, permissionHolder);
+    }
+
+    private Tristate processResult(PermissionQuery query, Claim claim, String permission, Tristate permissionValue, GDPermissionHolder permissionHolder) {
+        return processResult(query, claim, permission, null, permissionValue, permissionHolder);
+    }
+
+    private Tristate processResult(PermissionQuery query, Claim claim, String permission, String trust, Tristate permissionValue, GDPermissionHolder permissionHolder) {
+        if (GriefDefenderPlugin.debugActive && query.event != null) {
             // Use the event subject always if available
             // This prevents debug showing 'default' for users
-            if (eventSubject != null) {
-                permissionHolder = eventSubject;
+            if (query.subject != null) {
+                permissionHolder = query.subject;
             } else if (permissionHolder == null) {
                 final Object source = GDCauseStackManager.getInstance().getCurrentCause().root();
                 if (source instanceof GDPermissionUser) {
@@ -517,25 +590,37 @@ public Tristate processResult(Claim claim, String permission, String trust, Tris
                 }
             }
 
-            if (this.currentEvent instanceof BlockPhysicsEvent) {
+            if (query.event instanceof BlockPhysicsEvent) {
                 if (((GDClaim) claim).getWorld().getTime() % 100 != 0L) {
                     return permissionValue;
                 }
             }
 
-            GriefDefenderPlugin.addEventLogEntry(this.currentEvent, claim, this.eventLocation, this.eventSourceId, this.eventTargetId, this.eventSubject == null ? permissionHolder : this.eventSubject, permission, trust, permissionValue, this.eventContexts);
+            GriefDefenderPlugin.addEventLogEntry(query.event, claim, query.location, query.sourceId, query.targetId, query.subject == null ? permissionHolder : query.subject, permission, trust, permissionValue, query.contexts);
         }
 
 
-        if (eventPlayerData != null && eventPlayerData.eventResultCache != null) {
-            final Flag flag = FlagRegistryModule.getInstance().getById(permission).orElse(null);
+        if (query.playerData != null) {
+            final Flag flag = this.getFlagByPermission(permission);
             if (flag != null) {
-                eventPlayerData.eventResultCache = new EventResultCache((GDClaim) claim, flag.getName().toLowerCase(), permissionValue);
+                query.playerData.eventResultCache.addEventResult(claim, flag, query.targetId.hashCode(), permissionValue);
             }
         }
         return permissionValue;
     }
 
+    // Misses are not cached as add-on flags may register later
+    private Flag getFlagByPermission(String permission) {
+        Flag flag = this.permissionFlagCache.get(permission);
+        if (flag == null) {
+            flag = FlagRegistryModule.getInstance().getById(permission).orElse(null);
+            if (flag != null) {
+                this.permissionFlagCache.put(permission, flag);
+            }
+        }
+        return flag;
+    }
+
     public void processEventLog(Event event, Location location, Claim claim, String permission, Object source, Object target, GDPermissionHolder user, String trust, Tristate value) {
         final String sourceId = this.getPermissionIdentifier(source, true);
         final String targetId = this.getPermissionIdentifier(target);
@@ -624,17 +709,17 @@ public String getPermissionIdentifier(Object obj, boolean isSource) {
                 final String id = BlockTypeRegistryModule.getInstance().getNMSKey(blockstate);
                 return populateEventSourceTarget(id, isSource);
             } else if (obj instanceof Material) {
-                final String id = ((Material) obj).name().toLowerCase();
+                final String id = this.getEnumId((Material) obj);
                 return populateEventSourceTarget(id, isSource);
             } /*else if (obj instanceof TileEntity) {
                 TileEntity tileEntity = (TileEntity) obj;
                 final String id = tileEntity.getMinecraftKeyString();
                 return populateEventSourceTarget(id, isSource);
             }*/ else if (obj instanceof Inventory) {
-                final String id = ((Inventory) obj).getType().name().toLowerCase();
+                final String id = this.getEnumId(((Inventory) obj).getType());
                 return populateEventSourceTarget(id, isSource);
             } else if (obj instanceof InventoryType) {
-                final String id = ((InventoryType) obj).name().toLowerCase();
+                final String id = this.getEnumId((InventoryType) obj);
                 populateEventSourceTarget(id, isSource);
                 return id;
             } else if (obj instanceof Item) {
@@ -656,15 +741,13 @@ public String getPermissionIdentifier(Object obj, boolean isSource) {
                 String id = ItemTypeRegistryModule.getInstance().getNMSKey(itemstack);
                 return populateEventSourceTarget(id, isSource);
             } else if (obj instanceof DamageCause) {
-                final DamageCause damageCause = (DamageCause) obj;
-                String id = damageCause.name().toLowerCase();
+                final String id = this.getEnumId((DamageCause) obj);
                 return populateEventSourceTarget(id, isSource);
             } else if (obj instanceof TeleportCause) {
-                final TeleportCause teleportCause = (TeleportCause) obj;
-                String id = teleportCause.name().toLowerCase();
+                final String id = this.getEnumId((TeleportCause) obj);
                 return populateEventSourceTarget(id, isSource);
             } else if (obj instanceof SpawnReason) {
-                return populateEventSourceTarget("spawnreason:" + ((SpawnReason) obj).name().toLowerCase(), isSource);
+                return populateEventSourceTarget(this.getEnumId((SpawnReason) obj), isSource);
             } else if (obj instanceof CreatureSpawner) {
                 final CreatureSpawner spawner = (CreatureSpawner) obj;
                 return this.getPermissionIdentifier(spawner.getBlock());
@@ -764,13 +847,13 @@ public Set<Context> getPermissionContexts(GDClaim claim, Object obj, boolean isS
 
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof Material) {
-            final String id = BlockTypeRegistryModule.getInstance().getNMSKey((Material) obj);
+            final String id = this.materialKeyCache.computeIfAbsent((Material) obj, BlockTypeRegistryModule.getInstance()::getNMSKey);
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof Inventory) {
-            final String id = ((Inventory) obj).getType().name().toLowerCase();
+            final String id = this.getEnumId(((Inventory) obj).getType());
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof InventoryType) {
-            final String id = ((InventoryType) obj).name().toLowerCase();
+            final String id = this.getEnumId((InventoryType) obj);
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof ItemStack) {
             final ItemStack itemstack = (ItemStack) obj;
@@ -862,15 +945,13 @@ public Set<Context> getPermissionContexts(GDClaim claim, Object obj, boolean isS
 
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof DamageCause) {
-            final DamageCause damageCause = (DamageCause) obj;
-            String id = damageCause.name().toLowerCase();
+            final String id = this.getEnumId((DamageCause) obj);
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof TeleportCause) {
-            final TeleportCause teleportCause = (TeleportCause) obj;
-            String id = teleportCause.name().toLowerCase();
+            final String id = this.getEnumId((TeleportCause) obj);
             return populateEventSourceTargetContext(contexts, id, isSource);
         } else if (obj instanceof SpawnReason) {
-            return populateEventSourceTargetContext(contexts, "spawnreason:" + ((SpawnReason) obj).name().toLowerCase(), isSource);
+            return populateEventSourceTargetContext(contexts, this.getEnumId((SpawnReason) obj), isSource);
         } else if (obj instanceof CreatureSpawner) {
             final CreatureSpawner spawner = (CreatureSpawner) obj;
             return this.getPermissionContexts(claim, spawner.getBlock(), isSource);
@@ -887,9 +968,10 @@ public boolean isObjectIdBanned(GDClaim claim, String id, BanType type) {
             return false;
         }
 
+        final PermissionQuery query = PermissionQuery.current();
         GDPermissionUser user = null;
-        if (this.eventSubject != null && this.eventSubject instanceof GDPermissionUser) {
-            user = (GDPermissionUser) this.eventSubject;
+        if (query.subject != null && query.subject instanceof GDPermissionUser) {
+            user = (GDPermissionUser) query.subject;
             if (user.getInternalPlayerData() != null && user.getInternalPlayerData().canIgnoreClaim(claim)) {
                 return false;
             }
@@ -939,13 +1021,13 @@ public boolean isObjectIdBanned(GDClaim claim, String id, BanType type) {
                             ImmutableMap.of("id", id));
                 }
                 TextAdapter.sendComponent(player, banReason);
-                this.processResult(claim, permission, "banned", Tristate.FALSE, user);
+                this.processResult(query, claim, permission, "banned", Tristate.FALSE, user);
                 return true;
             }
         }
         if (banReason != null) {
             // Detected ban
-            this.processResult(claim, permission, "banned", Tristate.FALSE, this.eventSubject);
+            this.processResult(query, claim, permission, "banned", Tristate.FALSE, query.subject);
             return true;
         }
         return false;
@@ -1039,8 +1121,9 @@ public void addCustomEntityTypeContexts(Entity targetEntity, String id, Set<Cont
     }
 
     private void checkPetContext(Entity targetEntity, String modId, Set<Context> contexts, boolean isSource) {
-        if (this.eventSubject != null && this.eventSubject instanceof GDPermissionUser) {
-            final GDPermissionUser user = (GDPermissionUser) this.eventSubject;
+        final GDPermissionHolder subject = PermissionQuery.current().subject;
+        if (subject != null && subject instanceof GDPermissionUser) {
+            final GDPermissionUser user = (GDPermissionUser) subject;
             final UUID uuid = NMSUtil.getInstance().getTameableOwnerUUID(targetEntity);
             if (uuid != null && uuid.equals(user.getUniqueId())) {
                 if (isSource) {
@@ -1058,7 +1141,7 @@ private void checkPetContext(Entity targetEntity, String modId, Set<Context> con
         }
     }
 
-    private void addPlayerContexts(Player player, Set<Context> contexts, Flag flag) {
+    private void addPlayerContexts(PermissionQuery query, Player player, Set<Context> contexts, Flag flag) {
         Context usedItemContext = null;
         for (Context context : contexts) {
             if (context.getKey().equals(ContextKeys.USED_ITEM)) {
@@ -1068,11 +1151,11 @@ private void addPlayerContexts(Player player, Set<Context> contexts, Flag flag)
         }
         if(usedItemContext == null) {
             // special case
-            if (this.currentEvent instanceof PlayerBucketEvent) {
-                final PlayerBucketEvent bucketEvent = (PlayerBucketEvent) this.currentEvent;
+            if (query.event instanceof PlayerBucketEvent) {
+                final PlayerBucketEvent bucketEvent = (PlayerBucketEvent) query.event;
                 contexts.add(new Context(ContextKeys.USED_ITEM, "minecraft:" + bucketEvent.getBucket().name().toLowerCase()));
             } else {
-                final ItemStack stack = NMSUtil.getInstance().getActiveItem(player, this.currentEvent);
+                final ItemStack stack = NMSUtil.getInstance().getActiveItem(player, query.event);
                 if (stack != null && stack.getType() != Material.AIR) {
                     final String stackId = getPermissionIdentifier(stack);
                     contexts.add(new Context(ContextKeys.USED_ITEM, stackId));
@@ -1228,26 +1311,64 @@ public String getIdentifierWithoutMeta(String targetId) {
     }
 
     private Set<Context> populateEventSourceTargetContext(Set<Context> contexts, String id, boolean isSource) {
+        final Cache<String, IdContexts> contextCache = isSource ? this.sourceContextCache : this.targetContextCache;
+        IdContexts idContexts = contextCache.getIfPresent(id);
+        if (idContexts == null) {
+            idContexts = this.createIdContexts(id, isSource);
+            contextCache.put(id, idContexts);
+        }
+
+        contexts.addAll(idContexts.contexts);
+        if (isSource) {
+            PermissionQuery.current().sourceId = idContexts.id;
+        } else {
+            PermissionQuery.current().targetId = idContexts.id;
+        }
+        return contexts;
+    }
+
+    private IdContexts createIdContexts(String id, boolean isSource) {
         if (!id.contains(":")) {
             id = "minecraft:" + id;
         }
-        contexts = this.populateTagContextsForId(contexts, id, isSource);
+        final Set<Context> contexts = this.populateTagContextsForId(new HashSet<>(), id, isSource);
         // always add source/target any contexts
         contexts.add(ContextGroups.SOURCE_ANY);
         contexts.add(ContextGroups.TARGET_ANY);
         final String[] parts = id.split(":");
         final String modId = parts[0];
+        final String lowerId = id.toLowerCase();
         if (isSource) {
-            this.eventSourceId = id.toLowerCase();
-            contexts.add(new Context("source", this.eventSourceId));
+            contexts.add(new Context("source", lowerId));
             contexts.add(new Context("source", modId + ":any"));
         } else {
-            this.eventTargetId = id.toLowerCase();
-            contexts.add(new Context("target", this.eventTargetId));
+            contexts.add(new Context("target", lowerId));
             contexts.add(new Context("target", modId + ":any"));
         }
 
-        return contexts;
+        return new IdContexts(lowerId, ImmutableSet.copyOf(contexts));
+    }
+
+    private String getEnumId(Enum<?> value) {
+        String id = this.enumIdCache.get(value);
+        if (id == null) {
+            id = value.name().toLowerCase();
+            if (value instanceof SpawnReason) {
+                id = "spawnreason:" + id;
+            }
+            this.enumIdCache.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Clears memoized identifier contexts.
+     * 
+     * <p>Note: This should be called whenever tags are reloaded.</p>
+     */
+    public void clearContextCache() {
+        this.sourceContextCache.invalidateAll();
+        this.targetContextCache.invalidateAll();
     }
 
     public Set<Context> populateTagContextsForId(Set<Context> contexts, String id, boolean isSource) {
@@ -1291,10 +1412,11 @@ private String populateEventSourceTarget(String id, boolean isSource) {
                 id = parts[1] + ":" + parts[2];
             }
         }
+        final PermissionQuery query = PermissionQuery.current();
         if (isSource) {
-            this.eventSourceId = id.toLowerCase();
+            query.sourceId = id.toLowerCase();
         } else {
-            this.eventTargetId = id.toLowerCase();
+            query.targetId = id.toLowerCase();
         }
 
         return id;
@@ -1492,6 +1614,22 @@ public <T> T getInternalOptionValue(TypeToken<T> type, GDPermissionHolder holder
             }
         }
 
+        if (!PermissionUtil.getInstance().canCacheResults()) {
+            return this.resolveInternalOptionValue(type, holder, option, claim, claimType, contexts);
+        }
+
+        final Object cachedValue = OptionValueCache.getInstance().getIfPresent(holder, option, claim, claimType, contexts);
+        if (cachedValue != null) {
+            return OptionValueCache.isNullValue(cachedValue) ? null : (T) cachedValue;
+        }
+
+        final int generation = OptionValueCache.getInstance().getGeneration();
+        final T value = this.resolveInternalOptionValue(type, holder, option, claim, claimType, contexts);
+        OptionValueCache.getInstance().put(holder, option, claim, claimType, contexts, value, generation);
+        return value;
+    }
+
+    private <T> T resolveInternalOptionValue(TypeToken<T> type, GDPermissionHolder holder, Option<T> option, Claim claim, ClaimType claimType, Set<Context> contexts) {
         Set<Context> optionContexts = new HashSet<>(contexts);
         if (!option.isGlobal() && (claim != null || claimType != null)) {
             // check claim
@@ -1746,7 +1884,7 @@ public Optional<Option> getOption(String value) {
     }
 
     public Component getEventMessage() {
-        return this.eventMessage;
+        return PermissionQuery.current().getMessage();
     }
 
     @Override
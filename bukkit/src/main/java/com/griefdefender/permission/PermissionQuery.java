@@ -0,0 +1,156 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.permission;
+
+import com.griefdefender.GDPlayerData;
+import com.griefdefender.api.permission.Context;
+import net.kyori.text.Component;
+import org.bukkit.Location;
+import org.bukkit.event.Event;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds the state of a single flag permission check.
+ *
+ * <p>Queries are pooled per thread and linked to the query they were acquired
+ * in, so nested checks never clobber the state of an outer check. The last
+ * released query of a thread is kept intact until the next check so callers
+ * can still read its result message.</p>
+ */
+public final class PermissionQuery {
+
+    private static final ThreadLocal<QueryStack> QUERY_STACK = ThreadLocal.withInitial(QueryStack::new);
+
+    Event event;
+    Location location;
+    GDPermissionHolder subject;
+    GDPlayerData playerData;
+    String sourceId = "none";
+    String targetId = "none";
+    Set<Context> contexts = new HashSet<>();
+    Component message;
+
+    private int contextsHash;
+    private boolean contextsHashed;
+    private PermissionQuery previous;
+
+    private PermissionQuery() {
+    }
+
+    public Component getMessage() {
+        return this.message;
+    }
+
+    void setContexts(Set<Context> contexts) {
+        this.contexts = contexts;
+        this.contextsHashed = false;
+    }
+
+    /**
+     * Gets the hash of the check contexts.
+     *
+     * <p>The hash is computed once so repeated cache lookups of a check
+     * don't iterate the contexts again.</p>
+     *
+     * @return The hash
+     */
+    int getContextsHash() {
+        if (!this.contextsHashed) {
+            this.contextsHash = this.contexts.hashCode();
+            this.contextsHashed = true;
+        }
+        return this.contextsHash;
+    }
+
+    /**
+     * Acquires a query for a new permission check on the current thread.
+     *
+     * <p>Note: The query must be released once the check completes.</p>
+     *
+     * @return The query
+     */
+    static PermissionQuery acquire() {
+        final QueryStack stack = QUERY_STACK.get();
+        PermissionQuery query = stack.pool.poll();
+        if (query == null) {
+            query = new PermissionQuery();
+        } else {
+            query.reset();
+        }
+        query.previous = stack.active;
+        stack.active = query;
+        return query;
+    }
+
+    void release() {
+        final QueryStack stack = QUERY_STACK.get();
+        stack.active = this.previous;
+        this.previous = null;
+        if (stack.last != null) {
+            stack.last.reset();
+            stack.pool.push(stack.last);
+        }
+        stack.last = this;
+    }
+
+    /**
+     * Gets the active query of the current thread or, if no check is
+     * running, the last completed query.
+     *
+     * @return The query
+     */
+    static PermissionQuery current() {
+        final QueryStack stack = QUERY_STACK.get();
+        if (stack.active != null) {
+            return stack.active;
+        }
+        if (stack.last == null) {
+            stack.last = new PermissionQuery();
+        }
+        return stack.last;
+    }
+
+    private void reset() {
+        this.event = null;
+        this.location = null;
+        this.subject = null;
+        this.playerData = null;
+        this.sourceId = "none";
+        this.targetId = "none";
+        this.contexts = new HashSet<>();
+        this.contextsHashed = false;
+        this.message = null;
+    }
+
+    private static class QueryStack {
+
+        private final ArrayDeque<PermissionQuery> pool = new ArrayDeque<>();
+        private PermissionQuery active;
+        private PermissionQuery last;
+    }
+}
@@ -24,6 +24,8 @@
  */
 package com.griefdefender.provider;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ImmutableSet;
 import com.griefdefender.GDPlayerData;
 import com.griefdefender.GriefDefenderPlugin;
@@ -111,9 +113,17 @@ public int compare(Set<Context> s1, Set<Context> s2) {
     private final static DefaultPersistentOnlyDataFilter DEFAULT_PERSISTENT_ONLY = new DefaultPersistentOnlyDataFilter();
     private final static DefaultTransientOnlyDataFilter DEFAULT_TRANSIENT_ONLY = new DefaultTransientOnlyDataFilter();
     private final static UserPersistentOnlyDataFilter USER_PERSISTENT_ONLY = new UserPersistentOnlyDataFilter();
+    private final static int MAX_INTERNED_CONTEXTS = 10000;
+
+    // GD context set -> Interned LP contexts and query options
+    private final Cache<Set<Context>, InternedContexts> internedContextCache = Caffeine.newBuilder().maximumSize(MAX_INTERNED_CONTEXTS)
+            .build();
+    private final Context serverContext;
 
     public LuckPermsProvider() {
         this.luckPermsApi = Bukkit.getServicesManager().getRegistration(LuckPerms.class).getProvider();
+        final String serverName = this.luckPermsApi.getServerName();
+        this.serverContext = new Context("server", serverName != null ? serverName : "global");
         this.luckPermsApi.getContextManager().registerCalculator(new ClaimContextCalculator());
         new LuckPermsEventHandler(this.luckPermsApi);
     }
@@ -485,6 +495,40 @@ public Map<Set<Context>, Map<String, Boolean>> getPermanentPermissions(GDPermiss
         return permanentPermissionMap;
     }
 
+    /**
+     * Gets all persisted permissions visible to persistent lookups of holder,
+     * including those inherited from parent groups.
+     * 
+     * <p>Note: Regex nodes are returned by their raw key.</p>
+     * 
+     * @param holder The holder
+     * @return A map of persisted permissions or empty if none.
+     */
+    public Map<Set<Context>, Map<String, Boolean>> getResolvedPermanentPermissions(GDPermissionHolder holder) {
+        final PermissionHolder permissionHolder = this.getLuckPermsHolder(holder);
+        if (permissionHolder == null) {
+            return new HashMap<>();
+        }
+
+        final QueryOptions query = QueryOptions.builder(QueryMode.NON_CONTEXTUAL).option(DataTypeFilterFunction.KEY, DEFAULT_PERSISTENT_ONLY).build();
+        final Collection<Node> nodes = permissionHolder.resolveInheritedNodes(query);
+        Map<Set<Context>, Map<String, Boolean>> permanentPermissionMap = new TreeMap<Set<Context>, Map<String, Boolean>>(CONTEXT_COMPARATOR);
+        for (Node node : nodes) {
+            final String permission;
+            if (node.getType() == NodeType.PERMISSION) {
+                permission = ((PermissionNode) node).getPermission();
+            } else if (node.getType() == NodeType.REGEX_PERMISSION) {
+                permission = node.getKey();
+            } else {
+                continue;
+            }
+
+            final Set<Context> contexts = getGPContexts(node.getContexts());
+            permanentPermissionMap.computeIfAbsent(contexts, k -> new HashMap<>()).put(permission, node.getValue());
+        }
+        return permanentPermissionMap;
+    }
+
     public Map<Set<Context>, Map<String, Boolean>> getAllPermanentPermissions() {
         Map<Set<Context>, Map<String, Boolean>> permanentPermissionMap = new TreeMap<Set<Context>, Map<String, Boolean>>(CONTEXT_COMPARATOR);
         this.addAllPermanentPermissions(this.getLuckPermsHolder(GriefDefenderPlugin.GD_CLAIM_HOLDER), permanentPermissionMap);
@@ -696,10 +740,7 @@ public Tristate getPermissionValue(GDClaim claim, GDPermissionHolder holder, Str
     }
 
     public Tristate getPermissionValue(GDPermissionHolder holder, String permission) {
-        final Set<Context> contexts = new HashSet<>();
-        this.checkServerContext(contexts);
-        ImmutableContextSet set = this.getLPContexts(contexts).immutableCopy();
-        return this.getPermissionValue(holder, permission, set);
+        return this.getPermissionValue(holder, permission, new HashSet<>(), PermissionDataType.PERSISTENT);
     }
 
     public Tristate getPermissionValue(GDPermissionHolder holder, String permission, MutableContextSet contexts) {
@@ -707,9 +748,14 @@ public Tristate getPermissionValue(GDPermissionHolder holder, String permission,
     }
 
     public Tristate getPermissionValue(GDPermissionHolder holder, String permission, Set<Context> contexts, PermissionDataType type) {
-        this.checkServerContext(contexts);
-        ImmutableContextSet contextSet = this.getLPContexts(contexts).immutableCopy();
-        return this.getPermissionValue(holder, permission, contextSet, type);
+        final PermissionHolder permissionHolder = type == PermissionDataType.TRANSIENT ? this.getLuckPermsHolder(GriefDefenderPlugin.GD_DEFAULT_HOLDER) : this.getLuckPermsHolder(holder);
+        if (permissionHolder == null) {
+            return Tristate.UNDEFINED;
+        }
+
+        final QueryOptions query = this.getInternedContexts(contexts).getQueryOptions(type);
+        CachedPermissionData cachedData = permissionHolder.getCachedData().getPermissionData(query);
+        return getGDTristate(cachedData.checkPermission(permission));
     }
 
     public Tristate getPermissionValue(GDPermissionHolder holder, String permission, ContextSet contexts) {
@@ -722,16 +768,7 @@ public Tristate getPermissionValue(GDPermissionHolder holder, String permission,
             return Tristate.UNDEFINED;
         }
 
-        QueryOptions query = null;
-        if (type == PermissionDataType.TRANSIENT) {
-            query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, DEFAULT_TRANSIENT_ONLY).context(contexts).build();
-        } else if (type == PermissionDataType.PERSISTENT) {
-            query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, DEFAULT_PERSISTENT_ONLY).context(contexts).build();
-        } else if (type == PermissionDataType.USER_PERSISTENT) {
-            query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, USER_PERSISTENT_ONLY).context(contexts).build();
-        } else {
-            query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).context(contexts).build();
-        }
+        final QueryOptions query = createQueryOptions(contexts, type);
         CachedPermissionData cachedData = permissionHolder.getCachedData().getPermissionData(query);
         return getGDTristate(cachedData.checkPermission(permission));
     }
@@ -740,14 +777,13 @@ public Tristate getPermissionValue(GDPermissionHolder holder, String permission,
     @Override
     public String getOptionValue(GDPermissionHolder holder, Option option, Set<Context> contexts) {
         // If no server context exists, add global
-        this.checkServerContext(contexts);
-        ImmutableContextSet set = this.getLPContexts(contexts).immutableCopy();
+        final InternedContexts internedContexts = this.getInternedContexts(contexts);
         final PermissionHolder permissionHolder = this.getLuckPermsHolder(holder);
         if (permissionHolder == null) {
             return null;
         }
 
-        final QueryOptions query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).context(set).build();
+        final QueryOptions query = internedContexts.getQueryOptions(PermissionDataType.ALL);
         CachedMetaData metaData = permissionHolder.getCachedData().getMetaData(query);
         return metaData.getMetaValue(option.getPermission());
     }
@@ -755,15 +791,14 @@ public String getOptionValue(GDPermissionHolder holder, Option option, Set<Conte
     @Override
     public List<String> getOptionValueList(GDPermissionHolder holder, Option option, Set<Context> contexts) {
         // If no server context exists, add global
-        this.checkServerContext(contexts);
-        ImmutableContextSet set = this.getLPContexts(contexts).immutableCopy();
+        final InternedContexts internedContexts = this.getInternedContexts(contexts);
         final PermissionHolder permissionHolder = this.getLuckPermsHolder(holder);
         if (permissionHolder == null) {
             return null;
         }
 
         // First check user persistent data
-        QueryOptions query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, USER_PERSISTENT_ONLY).context(set).build();
+        QueryOptions query = internedContexts.getQueryOptions(PermissionDataType.USER_PERSISTENT);
         CachedMetaData metaData = permissionHolder.getCachedData().getMetaData(query);
         List<String> list = metaData.getMeta().get(option.getPermission());
         if (list != null) {
@@ -771,7 +806,7 @@ public List<String> getOptionValueList(GDPermissionHolder holder, Option option,
         }
 
         // Now check default persistent data
-        query = QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, DEFAULT_PERSISTENT_ONLY).context(set).build();
+        query = internedContexts.getQueryOptions(PermissionDataType.PERSISTENT);
         metaData = permissionHolder.getCachedData().getMetaData(query);
         list = metaData.getMeta().get(option.getPermission());
         if (list == null) {
@@ -1087,16 +1122,78 @@ private void clearMeta(PermissionHolder holder, String metaKey, ContextSet set)
     }
 
     private void checkServerContext(Set<Context> contexts) {
+        if (!hasServerContext(contexts)) {
+            contexts.add(this.serverContext);
+        }
+    }
+
+    private static boolean hasServerContext(Set<Context> contexts) {
         for (Context context : contexts) {
             if (context.getKey().equalsIgnoreCase("server")) {
-                return;
+                return true;
             }
         }
-        final String serverName = this.luckPermsApi.getServerName();
-        if (serverName != null) {
-            contexts.add(new Context("server", serverName));
-        } else {
-            contexts.add(new Context("server", "global"));
+        return false;
+    }
+
+    /**
+     * Gets the interned LP contexts for a set of GD contexts.
+     * 
+     * <p>Note: If no server context exists, the server context is added
+     * to the passed contexts.</p>
+     * 
+     * @param contexts The contexts
+     * @return The interned contexts
+     */
+    private InternedContexts getInternedContexts(Set<Context> contexts) {
+        InternedContexts internedContexts = this.internedContextCache.getIfPresent(contexts);
+        if (internedContexts == null) {
+            final Set<Context> key = ImmutableSet.copyOf(contexts);
+            final Context missingServerContext = hasServerContext(key) ? null : this.serverContext;
+            final MutableContextSet lpContexts = this.getLPContexts(key);
+            if (missingServerContext != null) {
+                lpContexts.add(missingServerContext.getKey(), missingServerContext.getValue());
+            }
+            internedContexts = new InternedContexts(lpContexts.immutableCopy(), missingServerContext);
+            this.internedContextCache.put(key, internedContexts);
+        }
+        if (internedContexts.serverContext != null) {
+            contexts.add(internedContexts.serverContext);
+        }
+        return internedContexts;
+    }
+
+    private static QueryOptions createQueryOptions(ContextSet contexts, PermissionDataType type) {
+        if (type == PermissionDataType.TRANSIENT) {
+            return QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, DEFAULT_TRANSIENT_ONLY).context(contexts).build();
+        } else if (type == PermissionDataType.PERSISTENT) {
+            return QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, DEFAULT_PERSISTENT_ONLY).context(contexts).build();
+        } else if (type == PermissionDataType.USER_PERSISTENT) {
+            return QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).option(DataTypeFilterFunction.KEY, USER_PERSISTENT_ONLY).context(contexts).build();
+        }
+        return QueryOptions.builder(QueryMode.CONTEXTUAL).option(DataQueryOrderFunction.KEY, DEFAULT_DATA_QUERY_ORDER).context(contexts).build();
+    }
+
+    private static class InternedContexts {
+
+        private final ImmutableContextSet contextSet;
+        // The server context added to the GD contexts, null if already present
+        private final Context serverContext;
+        private final QueryOptions[] queryOptions = new QueryOptions[PermissionDataType.values().length];
+
+        private InternedContexts(ImmutableContextSet contextSet, Context serverContext) {
+            this.contextSet = contextSet;
+            this.serverContext = serverContext;
+        }
+
+        private QueryOptions getQueryOptions(PermissionDataType type) {
+            QueryOptions query = this.queryOptions[type.ordinal()];
+            if (query == null) {
+                // Query options are immutable so a racing build is harmless
+                query = createQueryOptions(this.contextSet, type);
+                this.queryOptions[type.ordinal()] = query;
+            }
+            return query;
         }
     }
 
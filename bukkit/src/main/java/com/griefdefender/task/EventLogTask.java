@@ -0,0 +1,103 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.task;
+
+import com.griefdefender.GDBootstrap;
+import com.griefdefender.GriefDefenderPlugin;
+import com.griefdefender.api.Tristate;
+import com.griefdefender.api.claim.Claim;
+import com.griefdefender.api.permission.Context;
+import com.griefdefender.permission.GDPermissionHolder;
+import com.griefdefender.util.RingBuffer;
+
+import java.util.Set;
+
+import org.bukkit.Location;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * Formats and dispatches debug event log entries off the main thread.
+ */
+public class EventLogTask extends BukkitRunnable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final RingBuffer<EventLogEntry> ENTRY_BUFFER = new RingBuffer<>(BUFFER_SIZE);
+
+    public EventLogTask() {
+        this.runTaskTimerAsynchronously(GDBootstrap.getInstance(), 1L, 1L);
+    }
+
+    /**
+     * Queues an entry to be logged.
+     * 
+     * <p>Entries are dropped if the task cannot keep up.</p>
+     * 
+     * @param entry The entry
+     */
+    public static void addEntry(EventLogEntry entry) {
+        ENTRY_BUFFER.offer(entry);
+    }
+
+    @Override
+    public synchronized void run() {
+        EventLogEntry entry = ENTRY_BUFFER.poll();
+        while (entry != null) {
+            try {
+                GriefDefenderPlugin.logEventEntry(entry);
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+            entry = ENTRY_BUFFER.poll();
+        }
+    }
+
+    public static final class EventLogEntry {
+
+        public final Class<?> eventClass;
+        public final Claim claim;
+        public final Location location;
+        public final String sourceId;
+        public final String targetId;
+        public final GDPermissionHolder holder;
+        public final String permission;
+        public final String trust;
+        public final Tristate result;
+        public final Set<Context> contexts;
+
+        public EventLogEntry(Class<?> eventClass, Claim claim, Location location, String sourceId, String targetId, GDPermissionHolder holder,
+                String permission, String trust, Tristate result, Set<Context> contexts) {
+            this.eventClass = eventClass;
+            this.claim = claim;
+            this.location = location;
+            this.sourceId = sourceId;
+            this.targetId = targetId;
+            this.holder = holder;
+            this.permission = permission;
+            this.trust = trust;
+            this.result = result;
+            this.contexts = contexts;
+        }
+    }
+}
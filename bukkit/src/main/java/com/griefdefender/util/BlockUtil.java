@@ -40,8 +40,10 @@
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -270,49 +272,51 @@ public Location getBlockRelative(Location location, Direction direction) {
         return location.add(offset.getX(), offset.getY(), offset.getZ());
     }
 
+    /**
+     * Gets all claims within the chunks in block distance of a location.
+     * 
+     * <p>Note: Only the in-memory claim index is queried so no chunks
+     * are loaded.</p>
+     * 
+     * @param location The location
+     * @param blockDistance The horizontal block distance
+     * @param includeChildren Whether to include children of nearby claims
+     * @return The claims, ordered by distance from location
+     */
     public Set<Claim> getNearbyClaims(Location location, int blockDistance, boolean includeChildren) {
-        Set<Claim> claims = new HashSet<>();
+        Set<Claim> claims = new LinkedHashSet<>();
         GDClaimManager claimWorldManager = GriefDefenderPlugin.getInstance().dataStore.getClaimWorldManager(location.getWorld().getUID());
         if (claimWorldManager == null) {
             return claims;
         }
 
-        final World world = location.getWorld();
-        org.bukkit.Chunk lesserChunk = location.getWorld().getChunkAt((location.getBlockX() - blockDistance) >> 4, (location.getBlockZ() - blockDistance) >> 4);
-        org.bukkit.Chunk greaterChunk = location.getWorld().getChunkAt((location.getBlockX() + blockDistance) >> 4, (location.getBlockZ() + blockDistance) >> 4);
-
-        if (lesserChunk != null && greaterChunk != null) {
-            for (int chunkX = lesserChunk.getX(); chunkX <= greaterChunk.getX(); chunkX++) {
-                for (int chunkZ = lesserChunk.getZ(); chunkZ <= greaterChunk.getZ(); chunkZ++) {
-                    if (!world.isChunkLoaded(chunkX, chunkZ)) {
-                        continue;
-                    }
-                    org.bukkit.Chunk chunk = location.getWorld().getChunkAt(chunkX, chunkZ);
-                    if (chunk != null) {
-                        Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(NMSUtil.getInstance().getChunkCoordIntPair(chunkX, chunkZ));
-                        if (claimsInChunk != null) {
-                            for (Claim claim : claimsInChunk) {
-                                final GDClaim gdClaim = (GDClaim) claim;
-                                if (!includeChildren) {
-                                    if (gdClaim.parent == null && !claims.contains(claim)) {
-                                        claims.add(claim);
-                                    }
-                                } else if (!claims.contains(claim)){
-                                    claims.add(claim);
-                                    for (Claim child : gdClaim.getChildren(true)) {
-                                        claims.add(child);
-                                    }
-                                }
-                            }
-                        }
-                    }
+        final int x = location.getBlockX();
+        final int z = location.getBlockZ();
+        // Align to whole chunks to match the chunk based lookup this replaced
+        final int minX = ((x - blockDistance) >> 4) << 4;
+        final int minZ = ((z - blockDistance) >> 4) << 4;
+        final int maxX = (((x + blockDistance) >> 4) << 4) + 15;
+        final int maxZ = (((z + blockDistance) >> 4) << 4) + 15;
+        final List<GDClaim> nearbyClaims = claimWorldManager.getClaimsInArea(minX, minZ, maxX, maxZ);
+        if (includeChildren) {
+            final int size = nearbyClaims.size();
+            for (int i = 0; i < size; i++) {
+                for (Claim child : nearbyClaims.get(i).getChildren(true)) {
+                    nearbyClaims.add((GDClaim) child);
                 }
             }
         }
-
+        nearbyClaims.sort(Comparator.comparingLong(claim -> getDistanceSquared(claim, x, z)));
+        claims.addAll(nearbyClaims);
         return claims;
     }
 
+    private static long getDistanceSquared(GDClaim claim, int x, int z) {
+        final long dx = Math.max(0, Math.max(claim.lesserBoundaryCorner.getX() - x, x - claim.greaterBoundaryCorner.getX()));
+        final long dz = Math.max(0, Math.max(claim.lesserBoundaryCorner.getZ() - z, z - claim.greaterBoundaryCorner.getZ()));
+        return dx * dx + dz * dz;
+    }
+
     public Vector3i getChunkMin(org.bukkit.Chunk chunk) {
         return new Vector3i(chunk.getX() << 4, 0 << 8, chunk.getZ() << 4);
     }
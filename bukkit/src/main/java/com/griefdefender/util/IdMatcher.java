@@ -0,0 +1,152 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.griefdefender.permission.GDPermissionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled list of id wildcard patterns.
+ * 
+ * <p>Patterns follow the same rules as {@code FilenameUtils.wildcardMatch}.
+ * Exact ids are matched through a hash set, simple 'prefix*' patterns through
+ * a prefix scan and all other patterns through a compiled regex. Results are
+ * cached per id.</p>
+ */
+public class IdMatcher {
+
+    private static final int MAX_CACHED_RESULTS = 1000;
+
+    private final List<String> patterns;
+    private final Set<String> exactIds = new HashSet<>();
+    private final String[] prefixes;
+    private final Pattern[] wildcards;
+    private final Cache<String, Boolean> resultCache = Caffeine.newBuilder().maximumSize(MAX_CACHED_RESULTS).build();
+
+    private IdMatcher(List<String> patterns) {
+        this.patterns = patterns;
+        final List<String> prefixList = new ArrayList<>();
+        final List<Pattern> wildcardList = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+            final int wildcardIndex = indexOfWildcard(pattern, 0);
+            if (wildcardIndex == -1) {
+                this.exactIds.add(pattern);
+            } else if (wildcardIndex == pattern.length() - 1 && pattern.charAt(wildcardIndex) == '*') {
+                prefixList.add(pattern.substring(0, wildcardIndex));
+            } else {
+                wildcardList.add(compileWildcard(pattern));
+            }
+        }
+        this.prefixes = prefixList.toArray(new String[0]);
+        this.wildcards = wildcardList.toArray(new Pattern[0]);
+    }
+
+    public static IdMatcher compile(List<String> patterns) {
+        return new IdMatcher(patterns);
+    }
+
+    /**
+     * Gets the pattern list this matcher was compiled from.
+     * 
+     * @return The patterns
+     */
+    public List<String> getPatterns() {
+        return this.patterns;
+    }
+
+    public boolean isEmpty() {
+        return this.exactIds.isEmpty() && this.prefixes.length == 0 && this.wildcards.length == 0;
+    }
+
+    /**
+     * Checks if an id, with or without its meta, matches any pattern.
+     * 
+     * @param id The id
+     * @return Whether the id matches
+     */
+    public boolean matches(String id) {
+        Boolean result = this.resultCache.getIfPresent(id);
+        if (result == null) {
+            result = this.matchesPattern(id) || this.matchesPattern(GDPermissionManager.getInstance().getIdentifierWithoutMeta(id));
+            this.resultCache.put(id, result);
+        }
+        return result;
+    }
+
+    private boolean matchesPattern(String id) {
+        if (this.exactIds.contains(id)) {
+            return true;
+        }
+        for (String prefix : this.prefixes) {
+            if (id.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (Pattern wildcard : this.wildcards) {
+            if (wildcard.matcher(id).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfWildcard(String pattern, int fromIndex) {
+        for (int i = fromIndex; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Pattern compileWildcard(String pattern) {
+        final StringBuilder regex = new StringBuilder();
+        int start = 0;
+        int index = indexOfWildcard(pattern, start);
+        while (index != -1) {
+            if (index > start) {
+                regex.append(Pattern.quote(pattern.substring(start, index)));
+            }
+            regex.append(pattern.charAt(index) == '*' ? ".*" : ".");
+            start = index + 1;
+            index = indexOfWildcard(pattern, start);
+        }
+        if (start < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(start)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -34,21 +34,29 @@
 import com.griefdefender.api.permission.ContextKeys;
 import com.griefdefender.api.permission.PermissionResult;
 import com.griefdefender.api.permission.flag.Flag;
+import com.griefdefender.api.permission.flag.FlagData;
 import com.griefdefender.api.permission.flag.FlagDefinition;
 import com.griefdefender.api.permission.flag.Flags;
 import com.griefdefender.api.permission.option.Option;
+import com.griefdefender.cache.FlagDecisionCache;
+import com.griefdefender.cache.FlagDefaultTable;
+import com.griefdefender.cache.FlagPresenceIndex;
+import com.griefdefender.cache.OptionValueCache;
 import com.griefdefender.cache.PermissionHolderCache;
 import com.griefdefender.claim.GDClaim;
 import com.griefdefender.internal.util.VecHelper;
+import com.griefdefender.permission.GDPermissionGroup;
 import com.griefdefender.permission.GDPermissionHolder;
 import com.griefdefender.permission.GDPermissionManager;
 import com.griefdefender.permission.GDPermissions;
+import com.griefdefender.provider.LuckPermsProvider;
 import com.griefdefender.provider.PermissionProvider;
 import com.griefdefender.provider.PermissionProvider.PermissionDataType;
 
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,6 +66,8 @@
 public class PermissionUtil {
 
     private final PermissionProvider PERMISSION_PROVIDER;
+    // Only LuckPerms notifies GD of permission changes
+    private final boolean cacheResults;
 
     private static PermissionUtil instance;
 
@@ -71,6 +81,19 @@ public static PermissionUtil getInstance() {
 
     public PermissionUtil() {
         this.PERMISSION_PROVIDER = GriefDefenderPlugin.getInstance().getPermissionProvider();
+        this.cacheResults = this.PERMISSION_PROVIDER instanceof LuckPermsProvider;
+    }
+
+    /**
+     * Gets whether resolved permission results may be cached.
+     * 
+     * <p>Caches are only invalidated by permission change events so any
+     * provider that does not notify GD must always be read live.</p>
+     * 
+     * @return Whether results may be cached
+     */
+    public boolean canCacheResults() {
+        return this.cacheResults;
     }
 
     public String getServerName() {
@@ -123,18 +146,27 @@ public boolean containsOverrideContext(Set<Context> contexts) {
 
     public void clearPermissions(GDClaim claim) {
         PERMISSION_PROVIDER.clearPermissions(claim);
+        FlagDecisionCache.getInstance().invalidate(claim);
+        OptionValueCache.getInstance().invalidate(claim);
     }
 
     public void clearPermissions(OfflinePlayer player, Context context) {
-        PERMISSION_PROVIDER.clearPermissions(PermissionHolderCache.getInstance().getOrCreateUser(player), context);
+        final GDPermissionHolder holder = PermissionHolderCache.getInstance().getOrCreateUser(player);
+        PERMISSION_PROVIDER.clearPermissions(holder, context);
+        FlagDecisionCache.getInstance().invalidate(holder);
+        OptionValueCache.getInstance().invalidate(holder);
     }
 
     public void clearPermissions(GDPermissionHolder holder, Context context) {
         PERMISSION_PROVIDER.clearPermissions(holder, context);
+        invalidatePermissions(holder);
+        OptionValueCache.getInstance().invalidate(holder);
     }
 
     public void clearPermissions(GDPermissionHolder holder, Set<Context> contexts) {
         PERMISSION_PROVIDER.clearPermissions(holder, contexts);
+        invalidatePermissions(holder);
+        OptionValueCache.getInstance().invalidate(holder);
     }
 
     public boolean holderHasPermission(GDPermissionHolder holder, String permission) {
@@ -206,43 +238,63 @@ public List<String> getOptionValueList(GDPermissionHolder holder, Option option,
     }
 
     public CompletableFuture<PermissionResult> setFlagDefinition(GDPermissionHolder holder, FlagDefinition definition, Tristate value, Set<Context> contexts, boolean isTransient) {
-        return PERMISSION_PROVIDER.setFlagDefinition(holder, definition, value, contexts, isTransient);
+        if (!isTransient) {
+            for (FlagData flagData : definition.getFlagData()) {
+                final Set<Context> permissionContexts = new HashSet<>(flagData.getContexts());
+                permissionContexts.addAll(contexts);
+                FlagPresenceIndex.getInstance().add(flagData.getFlag().getPermission(), permissionContexts);
+            }
+        }
+        return invalidateOnComplete(PERMISSION_PROVIDER.setFlagDefinition(holder, definition, value, contexts, isTransient), () -> FlagDecisionCache.getInstance().invalidate(holder));
     }
 
     public CompletableFuture<PermissionResult> setOptionValue(GDPermissionHolder holder, String permission, String value, Set<Context> contexts) {
-        return PERMISSION_PROVIDER.setOptionValue(holder, permission, value, contexts, true);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setOptionValue(holder, permission, value, contexts, true), () -> OptionValueCache.getInstance().invalidate(holder));
     }
 
     public CompletableFuture<PermissionResult> setOptionValue(GDPermissionHolder holder, String permission, String value, Set<Context> contexts, boolean check) {
-        return PERMISSION_PROVIDER.setOptionValue(holder, permission, value, contexts, check);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setOptionValue(holder, permission, value, contexts, check), () -> OptionValueCache.getInstance().invalidate(holder));
     }
 
     public CompletableFuture<PermissionResult> setPermissionValue(GDPermissionHolder holder, Flag flag, Tristate value, Set<Context> contexts) {
-        return PERMISSION_PROVIDER.setPermissionValue(holder, flag, value, contexts, true, true);
+        FlagPresenceIndex.getInstance().add(flag.getPermission(), contexts);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setPermissionValue(holder, flag, value, contexts, true, true), () -> invalidatePermissions(holder));
     }
 
     public CompletableFuture<PermissionResult> setPermissionValue(GDPermissionHolder holder, String permission, Tristate value, Set<Context> contexts) {
-        return PERMISSION_PROVIDER.setPermissionValue(holder, permission, value, contexts, true, true);
+        FlagPresenceIndex.getInstance().add(permission, contexts);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setPermissionValue(holder, permission, value, contexts, true, true), () -> invalidatePermissions(holder));
     }
 
     public CompletableFuture<PermissionResult> setPermissionValue(GDPermissionHolder holder, Flag flag, Tristate value, Set<Context> contexts, boolean check, boolean save) {
-        return PERMISSION_PROVIDER.setPermissionValue(holder, flag, value, contexts, check, save);
+        FlagPresenceIndex.getInstance().add(flag.getPermission(), contexts);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setPermissionValue(holder, flag, value, contexts, check, save), () -> invalidatePermissions(holder));
     }
 
     public CompletableFuture<PermissionResult> setPermissionValue(GDPermissionHolder holder, String permission, Tristate value, Set<Context> contexts, boolean check, boolean save) {
-        return PERMISSION_PROVIDER.setPermissionValue(holder, permission, value, contexts, check, save);
+        FlagPresenceIndex.getInstance().add(permission, contexts);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setPermissionValue(holder, permission, value, contexts, check, save), () -> invalidatePermissions(holder));
     }
 
     public CompletableFuture<PermissionResult> setTransientOption(GDPermissionHolder holder, String permission, String value, Set<Context> contexts) {
-        return PERMISSION_PROVIDER.setTransientOption(holder, permission, value, contexts);
+        return invalidateOnComplete(PERMISSION_PROVIDER.setTransientOption(holder, permission, value, contexts), () -> OptionValueCache.getInstance().invalidate(holder));
     }
 
     public CompletableFuture<PermissionResult> setTransientPermission(GDPermissionHolder holder, String permission, Tristate value, Set<Context> contexts) {
-        return PERMISSION_PROVIDER.setTransientPermission(holder, permission, value, contexts);
+        final CompletableFuture<PermissionResult> result = invalidateOnComplete(PERMISSION_PROVIDER.setTransientPermission(holder, permission, value, contexts), () -> FlagDecisionCache.getInstance().invalidate(holder));
+        if (holder == GriefDefenderPlugin.GD_DEFAULT_HOLDER) {
+            // The node is applied async, invalidate once it is visible so lookups racing it cannot keep the old value
+            result.thenRun(FlagDefaultTable.getInstance()::invalidateAll);
+        }
+        return result;
     }
 
     public void refreshCachedData(GDPermissionHolder holder) {
         PERMISSION_PROVIDER.refreshCachedData(holder);
+        if (holder == GriefDefenderPlugin.GD_DEFAULT_HOLDER) {
+            // Transient defaults are applied async, drop values resolved before they were visible
+            FlagDefaultTable.getInstance().invalidateAll();
+        }
     }
 
     public CompletableFuture<Void> save(GDPermissionHolder holder) {
@@ -325,6 +377,20 @@ public boolean canPlayerTeleport(Player player, GDClaim claim) {
         return allowTeleport;
     }
 
+    private static void invalidatePermissions(GDPermissionHolder holder) {
+        FlagDecisionCache.getInstance().invalidate(holder);
+        if (holder instanceof GDPermissionGroup) {
+            GDClaim.invalidateGroupTrust();
+        }
+    }
+
+    // Writes are applied async, so invalidate both now and once the write is visible
+    // Otherwise a lookup racing the write could cache the old value again
+    private static <T> CompletableFuture<T> invalidateOnComplete(CompletableFuture<T> future, Runnable invalidation) {
+        invalidation.run();
+        return future.whenComplete((result, throwable) -> invalidation.run());
+    }
+
     public GDPermissionHolder getGDPermissionHolder(GDPermissionHolder holder, Set<Context> contexts) {
         if (holder != GriefDefenderPlugin.DEFAULT_HOLDER && holder != GriefDefenderPlugin.GD_DEFAULT_HOLDER) {
             return holder;
@@ -0,0 +1,99 @@
+/*
+ * This file is part of GriefDefender, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.griefdefender.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring buffer for many producers and a single consumer.
+ * 
+ * <p>Elements offered while the buffer is full are rejected rather than
+ * blocking the producer.</p>
+ */
+public class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    // Only written by the consumer
+    private volatile long consumerIndex = 0;
+
+    /**
+     * Creates a ring buffer.
+     * 
+     * @param capacity The capacity, rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element.
+     * 
+     * @param element The element
+     * @return False if the buffer is full
+     */
+    public boolean offer(E element) {
+        long index;
+        do {
+            index = this.producerIndex.get();
+            if (index - this.consumerIndex >= this.capacity) {
+                return false;
+            }
+        } while (!this.producerIndex.compareAndSet(index, index + 1));
+
+        this.buffer.lazySet((int) index & this.mask, element);
+        return true;
+    }
+
+    /**
+     * Removes the next element.
+     * 
+     * <p>Note: Must only be called by a single consumer.</p>
+     * 
+     * @return The element or null if none is available
+     */
+    public E poll() {
+        final long index = this.consumerIndex;
+        final int offset = (int) index & this.mask;
+        final E element = this.buffer.get(offset);
+        if (element == null) {
+            // Empty or the producer has not published yet
+            return null;
+        }
+
+        this.buffer.lazySet(offset, null);
+        this.consumerIndex = index + 1;
+        return element;
+    }
+}